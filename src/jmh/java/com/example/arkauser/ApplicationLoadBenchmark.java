@@ -0,0 +1,162 @@
+package com.example.arkauser;
+
+import com.example.arkauser.application.service.JwtService;
+import com.sun.net.httpserver.HttpServer;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+// Carga sobre la aplicación real (Tomcat, seguridad JWT, JPA sobre PostgreSQL embebido y Feign contra un
+// product-service simulado con latencia), con y sin spring.threads.virtual.enabled.
+// CONCURRENT_REQUESTS supera los 200 hilos por defecto de Tomcat para que se note el modelo de hilos.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ApplicationLoadBenchmark {
+
+    private static final int CONCURRENT_REQUESTS = 1000;
+    private static final int USERS = 1000;
+    private static final long PRODUCT_LATENCY_MILLIS = 20;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private EmbeddedPostgres postgres;
+    private HttpServer productService;
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient http;
+    private String baseUrl;
+    private String adminToken;
+    // Un id de producto nuevo por petición: cada una falla la caché y llega a product-service.
+    private final AtomicLong productIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        productService = startProductService();
+
+        var properties = new HashMap<String, Object>();
+        properties.put("server.port", 0);
+        properties.put("spring.profiles.active", "dev");
+        properties.put("spring.threads.virtual.enabled", virtualThreads);
+        properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "");
+        properties.put("eureka.client.enabled", false);
+        properties.put("spring.cloud.discovery.client.simple.instances.product-service[0].uri",
+                "http://localhost:" + productService.getAddress().getPort());
+        // Solo sube el límite de llamadas en vuelo; la espera del bulkhead se queda en la de application.yml.
+        properties.put("product-client.bulkhead.max-concurrent-calls", CONCURRENT_REQUESTS);
+        properties.put("product-client.circuit-breaker.slow-call-threshold", "10s");
+        properties.put("user-invalidation.enabled", false);
+        properties.put("user-outbox.enabled", false);
+        context = new SpringApplicationBuilder(ArkauserApplication.class)
+                .properties(properties)
+                .run();
+
+        new JdbcTemplate(context.getBean(DataSource.class)).update("""
+                insert into users (username, email, password, first_name, last_name, active, country, city, role)
+                select case when x = 1 then 'admin' else 'user' || x end, 'user' || x || '@arka.com',
+                       '$2a$10$abcdefghijklmnopqrstuv', 'Nombre' || x, 'Apellido' || x, true,
+                       'Colombia', 'Medellin', case when x = 1 then 'ADMIN' else 'USER' end
+                from generate_series(1, ?) x""", USERS);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        adminToken = context.getBean(JwtService.class).generateToken("admin", 1L, List.of("ADMIN"));
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        http = HttpClient.newBuilder().executor(clientExecutor).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        productService.stop(0);
+        clientExecutor.shutdownNow();
+        postgres.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public void getUserById() {
+        fire(i -> "/api/users/" + (1 + i % USERS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public void getProductThroughFeign() {
+        fire(i -> "/api/users/product/" + productIds.incrementAndGet());
+    }
+
+    private void fire(LongFunction<String> path) {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            var request = HttpRequest.newBuilder(URI.create(baseUrl + path.apply(i)))
+                    .header("Authorization", "Bearer " + adminToken)
+                    .GET()
+                    .build();
+            responses.add(http.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        for (var response : responses) {
+            int status = response.join().statusCode();
+            if (status != 200) throw new IllegalStateException("Respuesta inesperada: " + status);
+        }
+    }
+
+    private static HttpServer startProductService() throws IOException {
+        var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/product-service/products/", exchange -> {
+            try {
+                Thread.sleep(PRODUCT_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String path = exchange.getRequestURI().getPath();
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            byte[] body = ("{\"id\":" + id + ",\"name\":\"Producto " + id + "\",\"price\":10.0,\"stock\":5}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+}
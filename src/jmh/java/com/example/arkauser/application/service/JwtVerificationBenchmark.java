@@ -0,0 +1,53 @@
+package com.example.arkauser.application.service;
+
+import com.example.arkauser.infraestructure.security.JwtKeyRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtVerificationBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // Perfil dev: clave ES256 efímera, suficiente para medir firma y verificación.
+        var environment = new MockEnvironment();
+        environment.setActiveProfiles("dev");
+        jwtService = new JwtService(10_000, new JwtKeyRing(environment), new SimpleMeterRegistry());
+        token = jwtService.generateToken("admin@arka.com", 1L, "ADMIN");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("admin@arka.com", 1L, "ADMIN");
+    }
+
+    @Benchmark
+    public boolean isValidToken() {
+        return jwtService.isValidToken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken uncachedVerification() {
+        return jwtService.parse(token);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> cachedVerification() {
+        return jwtService.verify(token);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.arkauser.infraestructure.adapter.persistence;
+
+import com.example.arkauser.infraestructure.adapter.persistence.repository.UserJpaRepository;
+import com.example.arkauser.infraestructure.dto.UserResponseDto;
+import com.example.arkauser.infraestructure.mapper.UserMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Ejecutar con el profiler gc (habilitado en build.gradle): gc.alloc.rate.norm da los bytes asignados por fila.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserReadPathBenchmark {
+
+    private static final int ROWS = 500;
+
+    private EntityManagerFactory entityManagerFactory;
+    private UserJpaRepository repository;
+    private UserMapper mapper;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:users_read_path;DB_CLOSE_DELAY=-1");
+
+        var factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.example.arkauser.infraestructure.adapter.persistence.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        var entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        repository = new JpaRepositoryFactory(entityManager).getRepository(UserJpaRepository.class);
+        mapper = new UserMapper();
+
+        var transactionManager = new JpaTransactionManager(entityManagerFactory);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        new JdbcTemplate(dataSource).update("""
+                insert into users (id, username, email, password, first_name, last_name, phone_number, address, active, country, city, role)
+                select x, 'user' || x, 'user' || x || '@arka.com', '$2a$10$abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnopq',
+                       'Nombre' || x, 'Apellido' || x, '300' || x, 'Calle ' || x, true,
+                       'Colombia', 'Medellin', 'USER'
+                from system_range(1, ?)""", ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<UserResponseDto> fullEntity() {
+        return readWrite.execute(status -> repository.findAll(PageRequest.of(0, ROWS, Sort.by("id")))
+                .stream()
+                .map(mapper::toDomain)
+                .map(mapper::toResponseDto)
+                .toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<UserResponseDto> projection() {
+        return readOnly.execute(status -> repository.findSummaries(PageRequest.of(0, ROWS))
+                .stream()
+                .map(mapper::summaryToDomain)
+                .map(mapper::toResponseDto)
+                .toList());
+    }
+}
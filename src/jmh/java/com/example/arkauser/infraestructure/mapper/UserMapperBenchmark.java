@@ -0,0 +1,72 @@
+package com.example.arkauser.infraestructure.mapper;
+
+import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.model.enums.Rol;
+import com.example.arkauser.infraestructure.adapter.persistence.entity.UserEntity;
+import com.example.arkauser.infraestructure.adapter.persistence.projection.UserSummary;
+import com.example.arkauser.infraestructure.dto.UserRequestDto;
+import com.example.arkauser.infraestructure.dto.UserResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserMapperBenchmark {
+
+    private UserMapper mapper;
+    private UserEntity entity;
+    private UserSummary summary;
+    private UserRequestDto request;
+
+    @Setup
+    public void setUp() {
+        mapper = new UserMapper();
+        entity = UserEntity.builder()
+                .id(42L)
+                .username("jperez")
+                .email("jperez@arka.com")
+                .password("$2a$10$abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnopq")
+                .firstName("Juan")
+                .lastName("Pérez")
+                .phoneNumber("3001234567")
+                .address("Calle 10 # 43-12")
+                .active(true)
+                .country("Colombia")
+                .city("Medellín")
+                .role(Rol.USER)
+                .version(3L)
+                .build();
+        summary = new UserSummary(42L, "jperez", "jperez@arka.com", "Juan", "Pérez", "3001234567",
+                "Calle 10 # 43-12", true, "Colombia", "Medellín", Rol.USER, 3L);
+        request = new UserRequestDto(null, "jperez", "jperez@arka.com", "Sup3r-secret!", "Juan", "Pérez",
+                "3001234567", "Calle 10 # 43-12", true, "Colombia", "Medellín", "USER", null);
+    }
+
+    @Benchmark
+    public UserResponseDto entityToResponse() {
+        return mapper.toResponseDto(mapper.toDomain(entity));
+    }
+
+    @Benchmark
+    public UserResponseDto summaryToResponse() {
+        return mapper.toResponseDto(mapper.summaryToDomain(summary));
+    }
+
+    @Benchmark
+    public User requestToDomain() {
+        return mapper.requestToDomain(request);
+    }
+
+    @Benchmark
+    public UserEntity domainToEntity() {
+        return mapper.toEntity(mapper.toDomain(entity));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.arkauser.infraestructure.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// shouldNotFilter corre en cada petición; las rutas protegidas recorren la lista entera sin coincidir.
+// antPathMatcher reproduce el recorrido anterior, con su misma lista, para comparar tiempo y gc.alloc.rate.norm.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PublicPathMatchingBenchmark {
+
+    @Param({"/api/users/login", "/api/users/42", "/api/users/products:batch", "/actuator/health", "/swagger-ui/index.html"})
+    public String path;
+
+    // Copia literal de JwtAuthenticationFilter.PUBLIC_PATHS antes del cambio (incluido "/actuator/**"): la
+    // lista actual es más estricta con el actuator, pero la línea base tiene que ser el matcher que existía.
+    private static final List<String> ANT_PATTERNS = List.of(
+            "/error",
+            "/auth/**",
+            "/users/login",
+            "/users/create",
+            "/api/users/login",
+            "/api/users/create",
+            "/v3/api-docs/**",
+            "/swagger-ui/**",
+            "/swagger-ui.html",
+            "/actuator/**"
+    );
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        filter = new JwtAuthenticationFilter(null, null, null, false);
+        request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+    }
+
+    @Benchmark
+    public boolean shouldNotFilter() {
+        return filter.shouldNotFilter(request);
+    }
+
+    @Benchmark
+    public boolean publicPaths() {
+        return PublicPaths.matches(path);
+    }
+
+    @Benchmark
+    public boolean antPathMatcher() {
+        for (String pattern : ANT_PATTERNS) {
+            if (antPathMatcher.match(pattern, path)) return true;
+        }
+        return false;
+    }
+}
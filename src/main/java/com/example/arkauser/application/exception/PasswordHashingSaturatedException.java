@@ -0,0 +1,12 @@
+package com.example.arkauser.application.exception;
+
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    public PasswordHashingSaturatedException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingSaturatedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
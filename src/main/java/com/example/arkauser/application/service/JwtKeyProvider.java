@@ -0,0 +1,14 @@
+package com.example.arkauser.application.service;
+
+import io.jsonwebtoken.JwtParser;
+
+import java.security.PrivateKey;
+
+// Claves con las que JwtService firma y verifica; la carga, la rotación y el JWKS son de infraestructura.
+public interface JwtKeyProvider {
+
+    String activeKid();
+    PrivateKey activeKey();
+    JwtParser parser();
+    void onChange(Runnable listener);
+}
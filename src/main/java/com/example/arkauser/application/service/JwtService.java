@@ -1,39 +1,95 @@
 package com.example.arkauser.application.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
 
-    private static final String SECRET = "short_secret_key_32_chars_len!!!";
-    private static final long EXPIRATION_TIME = 3600000;
+    static final long EXPIRATION_TIME = 3600000;
 
-    private SecretKey key() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    // "iat" solo tiene precisión de segundos; la revocación compara con milisegundos.
+    static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
+    // Tokens verificados indexados por el SHA-256 del token (nunca el token en claro en el heap);
+    // cada entrada caduca en su "exp".
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final JwtKeyProvider keyRing;
+    private final Timer signTimer;
+    private final Timer parseTimer;
+
+    public JwtService(@Value("${security.jwt.cache.max-size:10000}") long cacheMaxSize,
+                      JwtKeyProvider keyRing,
+                      MeterRegistry meterRegistry) {
+        this.keyRing = keyRing;
+        this.signTimer = Timer.builder("jwt.token")
+                .tag("operation", "sign")
+                .register(meterRegistry);
+        this.parseTimer = Timer.builder("jwt.token")
+                .tag("operation", "parse")
+                .register(meterRegistry);
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken verified, long currentTime) {
+                        long millis = verified.expiresAt().toEpochMilli() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        // Un token cacheado pudo firmarse con una clave que ya no existe.
+        keyRing.onChange(verifiedTokens::invalidateAll);
     }
 
     public String generateToken(String subject, Map<String, Object> claims) {
-        Date now = new Date();
-        Date exp = new Date(now.getTime() + EXPIRATION_TIME);
-        return Jwts.builder()
-                .setSubject(subject)
-                .addClaims(claims)
-                .setIssuedAt(now)
-                .setExpiration(exp)
-                .signWith(key(), SignatureAlgorithm.HS256)
-                .compact();
+        return signTimer.record(() -> {
+            Date now = new Date();
+            Date exp = new Date(now.getTime() + EXPIRATION_TIME);
+            return Jwts.builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, keyRing.activeKid())
+                    .setSubject(subject)
+                    .addClaims(claims)
+                    .claim(ISSUED_AT_MILLIS_CLAIM, now.getTime())
+                    .setIssuedAt(now)
+                    .setExpiration(exp)
+                    .signWith(keyRing.activeKey(), SignatureAlgorithm.ES256)
+                    .compact();
+        });
     }
 
     public String generateToken(String subject, Long userId, Object roles) {
@@ -44,49 +100,92 @@ public class JwtService {
         return generateToken(subject, claims);
     }
 
-    public boolean isValidToken(String token) {
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+
+        String key = cacheKey(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.isExpired() ? Optional.empty() : Optional.of(cached);
+        }
+
+        try {
+            VerifiedToken verified = parse(token);
+            verifiedTokens.put(key, verified);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public VerifiedToken parse(String token) {
+        long start = System.nanoTime();
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key())
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+            return toVerifiedToken(keyRing.parser()
+                    .parseClaimsJws(token)
+                    .getBody());
+        } finally {
+            parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        if (claims.getExpiration() == null) throw new MalformedJwtException("El token no tiene fecha de expiración");
+
+        return new VerifiedToken(
+                claims.getSubject(),
+                toUserId(claims.get("uid")),
+                toRoles(claims.get("roles")),
+                toIssuedAt(claims),
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    public boolean isValidToken(String token) {
+        return verify(token).isPresent();
+    }
+
     public boolean isValidToken(String token, UserDetails userDetails) {
-        final String username = getSubject(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return verify(token)
+                .map(v -> v.subject() != null && v.subject().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
     public String getSubject(String token) {
-        return getAllClaims(token).getSubject();
+        return verify(token).map(VerifiedToken::subject).orElse(null);
     }
 
     public Long getUserId(String token) {
-        Object v = getAllClaims(token).get("uid");
-        return v == null ? null : Long.parseLong(v.toString());
+        return verify(token).map(VerifiedToken::userId).orElse(null);
     }
 
     public List<String> getRoles(String token) {
-        Object r = getAllClaims(token).get("roles");
-        if (r == null) return List.of();
-        if (r instanceof String s) return List.of(s);
-        if (r instanceof Collection<?> c) return c.stream().map(Object::toString).toList();
-        return List.of(r.toString());
+        return verify(token).map(VerifiedToken::roles).orElse(List.of());
     }
 
-    private Claims getAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static String cacheKey(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 
-    private boolean isTokenExpired(String token) {
-        return getAllClaims(token).getExpiration().before(new Date());
+    private Instant toIssuedAt(Claims claims) {
+        Object millis = claims.get(ISSUED_AT_MILLIS_CLAIM);
+        if (millis instanceof Number n) return Instant.ofEpochMilli(n.longValue());
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+    }
+
+    private Long toUserId(Object v) {
+        return v == null ? null : Long.parseLong(v.toString());
+    }
+
+    private List<String> toRoles(Object r) {
+        if (r == null) return List.of();
+        if (r instanceof String s) return List.of(s);
+        if (r instanceof Collection<?> c) return c.stream().map(Object::toString).toList();
+        return List.of(r.toString());
     }
 }
@@ -0,0 +1,145 @@
+package com.example.arkauser.application.service;
+
+import com.example.arkauser.application.exception.PasswordHashingSaturatedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int poolSize;
+    private final Duration timeout;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejections;
+    private final String dummyHash;
+
+    // BCrypt es CPU puro: un hilo por núcleo y una cola acotada; lo que no cabe se rechaza al instante
+    // en lugar de bloquear los hilos de Tomcat.
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${security.password.hash-threads:0}") int threads,
+                          @Value("${security.password.queue-capacity:64}") int queueCapacity,
+                          @Value("${security.password.timeout:2s}") Duration timeout) {
+        this.passwordEncoder = passwordEncoder;
+        this.poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.timeout = timeout;
+        // Mismo coste que los hashes reales para que un usuario inexistente tarde lo mismo que uno existente.
+        this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.encodeTimer = Timer.builder("password.hash")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("password.hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("password.hash.rejections")
+                .description("Peticiones rechazadas por saturación del pool de hashing")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return await(submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(submit(() -> matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword))));
+    }
+
+    public void matchesDummy(String rawPassword) {
+        matches(rawPassword, dummyHash);
+    }
+
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public List<String> encodeAll(List<String> rawPasswords) {
+        // Por tandas del tamaño del pool para no acaparar la cola que comparten login y registro.
+        var hashes = new ArrayList<String>(rawPasswords.size());
+        for (int from = 0; from < rawPasswords.size(); from += poolSize) {
+            var futures = new ArrayList<Future<String>>(poolSize);
+            for (String raw : rawPasswords.subList(from, Math.min(from + poolSize, rawPasswords.size()))) {
+                futures.add(submit(() -> encodeTimer.record(() -> passwordEncoder.encode(raw))));
+            }
+            for (Future<String> future : futures) {
+                hashes.add(await(future));
+            }
+        }
+        return hashes;
+    }
+
+    // La tarea caduca si empieza después del timeout: quien la pidió ya recibió un 503 (también las que quedan
+    // en cola de un encodeAll abortado). Una vez empezado, BCrypt no atiende interrupciones y termina igual;
+    // el timeout libera al llamante, no al hilo del pool.
+    private <T> Future<T> submit(Callable<T> task) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            return executor.submit(() -> {
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new PasswordHashingSaturatedException("Operación de credenciales caducada en cola");
+                }
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new PasswordHashingSaturatedException("El servicio de credenciales está saturado", e);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Solo evita que arranque si sigue en cola; sin interrupción, que BCrypt ignoraría.
+            future.cancel(false);
+            rejections.increment();
+            throw new PasswordHashingSaturatedException("El servicio de credenciales está saturado", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new PasswordHashingSaturatedException("Operación de credenciales interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
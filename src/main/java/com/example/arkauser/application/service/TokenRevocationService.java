@@ -0,0 +1,50 @@
+package com.example.arkauser.application.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+@Service
+public class TokenRevocationService {
+
+    // Por usuario, los tokens emitidos antes de este instante dejan de ser válidos.
+    // Basta con recordarlo durante la vida máxima de un token.
+    private final Cache<Long, Instant> revokedBefore;
+
+    public TokenRevocationService(@Value("${security.jwt.revocation.max-size:100000}") long maxSize) {
+        this.revokedBefore = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(JwtService.EXPIRATION_TIME))
+                .build();
+    }
+
+    public void revokeUser(Long userId) {
+        revokeUser(userId, Instant.now());
+    }
+
+    public void revokeUser(Long userId, Instant at) {
+        if (userId == null || at == null) return;
+        // Misma precisión que "iat_ms"; Instant.now() llega a microsegundos.
+        Instant cutoff = at.truncatedTo(ChronoUnit.MILLIS);
+        revokedBefore.asMap().merge(userId, cutoff, (previous, next) -> next.isAfter(previous) ? next : previous);
+    }
+
+    // Cuánto hay que mirar atrás para reconstruir las revocaciones: la vida máxima de un token.
+    public Duration retention() {
+        return Duration.ofMillis(JwtService.EXPIRATION_TIME);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.userId() == null) return false;
+        Instant cutoff = revokedBefore.getIfPresent(token.userId());
+        // Vale solo el token emitido estrictamente después del corte. Con "iat_ms" la comparación es al
+        // milisegundo; los tokens sin él traen "iat" truncado a segundos y uno emitido en el mismo segundo
+        // que el corte queda revocado (nunca al revés).
+        return cutoff != null && (token.issuedAt() == null || !token.issuedAt().isAfter(cutoff));
+    }
+}
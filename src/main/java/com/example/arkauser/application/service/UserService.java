@@ -1,28 +1,63 @@
 package com.example.arkauser.application.service;
 
+import com.example.arkauser.domain.exception.UserAlreadyExistsException;
 import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.model.UserChange;
+import com.example.arkauser.domain.model.UserImportResult;
+import com.example.arkauser.domain.model.UserLookupResult;
+import com.example.arkauser.domain.model.enums.ImportStatus;
+import com.example.arkauser.domain.model.UserPage;
+import com.example.arkauser.domain.model.UserPatch;
+import com.example.arkauser.domain.model.UserUpdateResult;
 import com.example.arkauser.domain.model.enums.Rol;
 import com.example.arkauser.domain.ports.in.UserUseCase;
+import com.example.arkauser.domain.ports.out.UserBulkRepositoryPort;
+import com.example.arkauser.domain.ports.out.UserCachePort;
+import com.example.arkauser.domain.ports.out.UserChangeFeedPort;
+import com.example.arkauser.domain.ports.out.UserInvalidationPort;
 import com.example.arkauser.domain.ports.out.UserRepositoryPort;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "user.usecase", description = "Duración de cada caso de uso de usuarios")
 public class UserService implements UserUseCase {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_IMPORT_BATCH = 1000;
+    private static final int MAX_LOOKUP_IDS = 1000;
+
     private final UserRepositoryPort userRepositoryPort;
-    private final PasswordEncoder passwordEncoder;
+    private final UserBulkRepositoryPort userBulkRepositoryPort;
+    private final PasswordHasher passwordHasher;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserCachePort userCachePort;
+    private final UserInvalidationPort userInvalidationPort;
+    private final UserChangeFeedPort userChangeFeedPort;
 
     @Override
     public User createUser(User user) {
         String email = user.getEmail() != null ? user.getEmail().trim().toLowerCase() : null;
-        String encodedPassword = user.getPassword() != null ? passwordEncoder.encode(user.getPassword()) : null;
+        // Comprobación barata antes del hash: un reenvío duplicado no debe costar un BCrypt completo.
+        // El ON CONFLICT del insert sigue decidiendo en caso de carrera.
+        if (userRepositoryPort.existsByUsernameOrEmail(user.getUsername(), email)) {
+            throw new UserAlreadyExistsException("User already exists: " + user.getUsername());
+        }
+        String encodedPassword = user.getPassword() != null ? passwordHasher.encode(user.getPassword()) : null;
 
         String desired = user.getRole() != null ? user.getRole() : Rol.USER.name();
         Rol finalEnum = toEnum(desired);
@@ -39,59 +74,172 @@ public class UserService implements UserUseCase {
                 user.isActive(),
                 user.getCountry(),
                 user.getCity(),
-                finalEnum.name()
+                finalEnum.name(),
+                null
         );
         return userRepositoryPort.createUser(toCreate);
     }
 
+    @Override
+    public List<UserImportResult> importUsers(List<User> users) {
+        if (users == null || users.isEmpty()) return List.of();
+        if (users.size() > MAX_IMPORT_BATCH) throw new IllegalArgumentException("El lote no puede superar " + MAX_IMPORT_BATCH + " usuarios");
+
+        var results = new UserImportResult[users.size()];
+        // Emails normalizados aparte: los User recibidos no se modifican.
+        var emails = new String[users.size()];
+        var seenUsernames = new HashSet<String>();
+        var seenEmails = new HashSet<String>();
+        var candidates = new ArrayList<Integer>();
+
+        for (int i = 0; i < users.size(); i++) {
+            User u = users.get(i);
+            String email = u.getEmail() != null ? u.getEmail().trim().toLowerCase() : null;
+            emails[i] = email;
+            if (isBlank(u.getUsername()) || isBlank(email) || isBlank(u.getPassword())) {
+                results[i] = new UserImportResult(i, ImportStatus.INVALID, null, "Usuario, email y contraseña son obligatorios");
+            } else if (!seenUsernames.add(u.getUsername()) || !seenEmails.add(email)) {
+                results[i] = new UserImportResult(i, ImportStatus.DUPLICATE, null, "El usuario está repetido dentro del lote");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        var existing = userRepositoryPort.getUsersByUsernamesOrEmails(
+                candidates.stream().map(i -> users.get(i).getUsername()).toList(),
+                candidates.stream().map(i -> emails[i]).toList()
+        );
+        var takenUsernames = new HashSet<String>();
+        var takenEmails = new HashSet<String>();
+        existing.forEach(u -> {
+            takenUsernames.add(u.getUsername());
+            takenEmails.add(u.getEmail());
+        });
+
+        var toInsert = new ArrayList<Integer>();
+        for (Integer i : candidates) {
+            User u = users.get(i);
+            if (takenUsernames.contains(u.getUsername()) || takenEmails.contains(emails[i])) {
+                results[i] = new UserImportResult(i, ImportStatus.DUPLICATE, null, "El usuario ya existe, no se pueden crear usuarios repetidos");
+            } else {
+                toInsert.add(i);
+            }
+        }
+
+        var hashes = passwordHasher.encodeAll(toInsert.stream().map(i -> users.get(i).getPassword()).toList());
+        var rows = new ArrayList<User>(toInsert.size());
+        for (int k = 0; k < toInsert.size(); k++) {
+            int i = toInsert.get(k);
+            User u = users.get(i);
+            rows.add(new User(
+                    null,
+                    u.getUsername(),
+                    emails[i],
+                    hashes.get(k),
+                    u.getFirstName(),
+                    u.getLastName(),
+                    u.getPhoneNumber(),
+                    u.getAddress(),
+                    u.isActive(),
+                    u.getCountry(),
+                    u.getCity(),
+                    toEnum(u.getRole()).name(),
+                    null
+            ));
+        }
+
+        var created = new HashMap<String, Long>();
+        userBulkRepositoryPort.insertUsers(rows).forEach(u -> created.put(u.getUsername(), u.getId()));
+        for (Integer i : toInsert) {
+            Long id = created.get(users.get(i).getUsername());
+            // Sin id: otra petición creó el mismo usuario entre la consulta previa y el INSERT.
+            results[i] = id != null
+                    ? new UserImportResult(i, ImportStatus.CREATED, id, "El usuario se ha creado correctamente")
+                    : new UserImportResult(i, ImportStatus.DUPLICATE, null, "El usuario ya existe, no se pueden crear usuarios repetidos");
+        }
+        return List.of(results);
+    }
+
     @Override
     public User getUserById(Long id) {
         return userRepositoryPort.getUserById(id);
     }
 
     @Override
-    public User updateUser(Long id, User user) {
+    public UserLookupResult getUsersByIds(List<Long> ids) {
+        var unique = new LinkedHashSet<Long>();
+        if (ids != null) ids.forEach(id -> {
+            if (id != null) unique.add(id);
+        });
+        if (unique.size() > MAX_LOOKUP_IDS) throw new IllegalArgumentException("No se pueden consultar más de " + MAX_LOOKUP_IDS + " usuarios por petición");
+        if (unique.isEmpty()) return new UserLookupResult(Map.of(), List.of());
+
+        var byId = new HashMap<Long, User>();
+        userRepositoryPort.getUsersByIds(unique).forEach(u -> byId.put(u.getId(), u));
+
+        // Se respeta el orden de la petición en ambas partes de la respuesta.
+        var found = new LinkedHashMap<Long, User>();
+        var missing = new ArrayList<Long>();
+        for (Long id : unique) {
+            User user = byId.get(id);
+            if (user != null) found.put(id, user);
+            else missing.add(id);
+        }
+        return new UserLookupResult(found, missing);
+    }
+
+    @Override
+    public User updateUser(Long id, UserPatch patch) {
         if (id == null) throw new IllegalArgumentException("El ID no puede ser nulo");
-        if (user == null) throw new IllegalArgumentException("El payload de usuario no puede ser nulo");
-        if (user.getId() != null && !id.equals(user.getId())) throw new IllegalArgumentException("El ID del usuario no coincide con el ID proporcionado");
-
-        User current = userRepositoryPort.getUserById(id);
-
-        String newEmail = user.getEmail() != null ? user.getEmail().trim().toLowerCase() : current.getEmail();
-        String newPassword = user.getPassword() != null && !user.getPassword().isBlank()
-                ? passwordEncoder.encode(user.getPassword())
-                : current.getPassword();
-
-        String incomingRole = user.getRole() != null ? user.getRole() : current.getRole();
-        String normalizedIncoming = toEnum(incomingRole).name();
-
-        User toUpdate = new User(
-                id,
-                user.getUsername() != null ? user.getUsername() : current.getUsername(),
-                newEmail,
-                newPassword,
-                user.getFirstName() != null ? user.getFirstName() : current.getFirstName(),
-                user.getLastName() != null ? user.getLastName() : current.getLastName(),
-                user.getPhoneNumber() != null ? user.getPhoneNumber() : current.getPhoneNumber(),
-                user.getAddress() != null ? user.getAddress() : current.getAddress(),
-                user.isActive(),
-                user.getCountry() != null ? user.getCountry() : current.getCountry(),
-                user.getCity() != null ? user.getCity() : current.getCity(),
-                normalizedIncoming
-        );
+        if (patch == null) throw new IllegalArgumentException("El payload de usuario no puede ser nulo");
+
+        // Una contraseña vacía se interpreta como "sin cambios", igual que antes.
+        if (patch.getPassword() != null && patch.getPassword().isBlank()) patch.setPassword(null);
+        validateNonBlankIfPresent(patch);
 
-        validateNonBlankIfPresent(toUpdate);
-        return userRepositoryPort.updateUser(id, toUpdate);
+        if (patch.getEmail() != null) patch.setEmail(patch.getEmail().trim().toLowerCase());
+        if (patch.getRole() != null) patch.setRole(toEnum(patch.getRole()).name());
+        if (patch.getPassword() != null) patch.setPassword(passwordHasher.encode(patch.getPassword()));
+
+        UserUpdateResult result = userRepositoryPort.patchUser(id, patch);
+        invalidate(id, result.getTokensValidAfter());
+        return result.getUser();
+    }
+
+    @Override
+    public void upgradePasswordHash(User user, String rawPassword) {
+        if (!passwordHasher.needsRehash(user.getPassword())) return;
+        // Compare-and-set sobre el hash leído: si alguien cambió la contraseña entretanto no se pisa.
+        if (userRepositoryPort.updatePassword(user.getId(), user.getPassword(), passwordHasher.encode(rawPassword))) {
+            invalidate(user.getId(), null);
+        }
     }
 
     @Override
     public void deleteUser(Long id) {
-        userRepositoryPort.deleteUser(id);
+        invalidate(id, userRepositoryPort.deleteUser(id));
+    }
+
+    @Override
+    public UserPage getUsersAfter(Long afterId, int limit) {
+        return userRepositoryPort.getUsersAfter(afterId, clampPageSize(limit));
+    }
+
+    @Override
+    public UserPage getUsersPage(int page, int size) {
+        if (page < 0) throw new IllegalArgumentException("El número de página no puede ser negativo");
+        return userRepositoryPort.getUsersPage(page, clampPageSize(size));
     }
 
     @Override
-    public List<User> getAllUsers() {
-        return userRepositoryPort.getAllUsers();
+    public List<UserChange> getChangesSince(Long since, int limit) {
+        if (since != null && since < 0) throw new IllegalArgumentException("El cursor no puede ser negativo");
+        return userChangeFeedPort.getChangesSince(since != null ? since : 0L, clampPageSize(limit));
+    }
+
+    @Override
+    public void exportUsers(Consumer<User> consumer) {
+        userBulkRepositoryPort.streamAllUsers(consumer);
     }
 
     @Override
@@ -114,12 +262,29 @@ public class UserService implements UserUseCase {
         return userRepositoryPort.getUsersByActiveStatus(isActive);
     }
 
+    // Local primero; luego se avisa al resto de nodos. El corte es el que devolvió la base de datos
+    // (tokens_valid_after o la fecha del borrado): memoria, NOTIFY y reconstrucción usan el mismo reloj.
+    private void invalidate(Long id, Instant revokedAt) {
+        boolean revokeTokens = revokedAt != null;
+        userCachePort.evictUser(id);
+        if (revokeTokens) tokenRevocationService.revokeUser(id, revokedAt);
+        userInvalidationPort.publish(id, revokeTokens, revokeTokens ? revokedAt : Instant.now());
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private int clampPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
     private Rol toEnum(String value) {
         if (value == null) return Rol.USER;
         try { return Rol.valueOf(value.toUpperCase()); } catch (IllegalArgumentException e) { return Rol.USER; }
     }
 
-    private void validateNonBlankIfPresent(User u) {
+    private void validateNonBlankIfPresent(UserPatch u) {
         if (u.getUsername() != null && u.getUsername().isBlank()) throw new IllegalArgumentException("El nombre de usuario no puede estar vacío");
         if (u.getEmail() != null && u.getEmail().isBlank()) throw new IllegalArgumentException("El correo electrónico no puede estar vacío");
         if (u.getPassword() != null && u.getPassword().isBlank()) throw new IllegalArgumentException("La contraseña no puede estar vacía");
@@ -0,0 +1,17 @@
+package com.example.arkauser.application.service;
+
+import java.time.Instant;
+import java.util.List;
+
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        List<String> roles,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
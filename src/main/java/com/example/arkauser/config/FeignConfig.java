@@ -1,11 +1,12 @@
 package com.example.arkauser.config;
 
 import feign.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 
 public class FeignConfig {
     @Bean
-    public Logger.Level feignLoggerLevel() {
-        return Logger.Level.FULL; 
+    public Logger.Level feignLoggerLevel(@Value("${product-client.log-level:BASIC}") Logger.Level level) {
+        return level;
     }
 }
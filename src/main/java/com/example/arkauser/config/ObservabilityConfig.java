@@ -0,0 +1,55 @@
+package com.example.arkauser.config;
+
+import com.example.arkauser.infraestructure.observability.JdbcQueryListener;
+import com.example.arkauser.infraestructure.observability.JdbcRequestMetricsFilter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class ObservabilityConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Envuelve el pool (Hikari sigue publicando sus métricas: el proxy delega unwrap/isWrapperFor).
+    @Bean
+    public static BeanPostProcessor jdbcProxyPostProcessor(
+            @Value("${observability.jdbc.slow-query-threshold:200ms}") Duration slowQueryThreshold,
+            @Value("${observability.jdbc.slow-query-sample-rate:0.1}") double sampleRate) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new JdbcQueryListener(slowQueryThreshold, sampleRate))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Por delante de la cadena de seguridad para contar también las consultas del filtro JWT.
+    @Bean
+    public FilterRegistrationBean<JdbcRequestMetricsFilter> jdbcRequestMetricsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${observability.jdbc.n-plus-one-threshold:20}") int nPlusOneThreshold) {
+        var registration = new FilterRegistrationBean<>(new JdbcRequestMetricsFilter(meterRegistry, nPlusOneThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.arkauser.config;
+
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ProductClientResilienceConfig {
+
+    private static final String PRODUCT_SERVICE = "product-service";
+
+    @Bean
+    public CircuitBreaker productServiceCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${product-client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${product-client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${product-client.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${product-client.circuit-breaker.slow-call-threshold:2s}") Duration slowCallThreshold,
+            @Value("${product-client.circuit-breaker.wait-in-open:10s}") Duration waitInOpen,
+            @Value("${product-client.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        var config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(waitInOpen)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                // Un 4xx es una respuesta válida de product-service y un bulkhead lleno es carga propia.
+                .ignoreExceptions(FeignException.FeignClientException.class, BulkheadFullException.class)
+                .build();
+        return circuitBreaker(CircuitBreakerRegistry.of(config), meterRegistry);
+    }
+
+    @Bean
+    public Bulkhead productServiceBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${product-client.bulkhead.max-concurrent-calls:16}") int maxConcurrentCalls,
+            @Value("${product-client.bulkhead.max-wait:0ms}") Duration maxWait) {
+        var registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(PRODUCT_SERVICE);
+    }
+
+    public static CircuitBreaker circuitBreaker(CircuitBreakerRegistry registry, MeterRegistry meterRegistry) {
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        var circuitBreaker = registry.circuitBreaker(PRODUCT_SERVICE);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> meterRegistry.counter(
+                "product.client.circuit.transitions",
+                "from", event.getStateTransition().getFromState().name(),
+                "to", event.getStateTransition().getToState().name()
+        ).increment());
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.arkauser.domain.exception;
+
+public class ChangeFeedGapException extends RuntimeException {
+
+    private final long resetCursor;
+
+    public ChangeFeedGapException(long since, long resetCursor) {
+        super("Change feed cursor " + since + " is older than the purged events up to " + resetCursor);
+        this.resetCursor = resetCursor;
+    }
+
+    public long getResetCursor() {
+        return resetCursor;
+    }
+}
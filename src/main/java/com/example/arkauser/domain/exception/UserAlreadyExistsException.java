@@ -0,0 +1,8 @@
+package com.example.arkauser.domain.exception;
+
+public class UserAlreadyExistsException extends RuntimeException {
+
+    public UserAlreadyExistsException(String message) {
+        super(message);
+    }
+}
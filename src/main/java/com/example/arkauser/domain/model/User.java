@@ -24,4 +24,5 @@ public class User {
     private String country;
     private String city;
     private String role;
+    private Long version;
 }
@@ -0,0 +1,18 @@
+package com.example.arkauser.domain.model;
+
+import java.time.Instant;
+
+import com.example.arkauser.domain.model.enums.ChangeType;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserChange {
+    private Long seq;
+    private Long userId;
+    private ChangeType type;
+    private Instant occurredAt;
+    private User user;
+}
@@ -0,0 +1,15 @@
+package com.example.arkauser.domain.model;
+
+import com.example.arkauser.domain.model.enums.ImportStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserImportResult {
+    private int index;
+    private ImportStatus status;
+    private Long id;
+    private String message;
+}
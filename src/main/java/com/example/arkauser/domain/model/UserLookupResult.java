@@ -0,0 +1,14 @@
+package com.example.arkauser.domain.model;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserLookupResult {
+    private Map<Long, User> found;
+    private List<Long> missing;
+}
@@ -0,0 +1,13 @@
+package com.example.arkauser.domain.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserPage {
+    private List<User> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,28 @@
+package com.example.arkauser.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Cambios parciales: un campo null significa "no modificar".
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPatch {
+    private String username;
+    private String email;
+    private String password;
+    private String firstName;
+    private String lastName;
+    private String phoneNumber;
+    private String address;
+    private Boolean active;
+    private String country;
+    private String city;
+    private String role;
+    private Long version;
+}
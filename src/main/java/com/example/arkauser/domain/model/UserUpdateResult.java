@@ -0,0 +1,15 @@
+package com.example.arkauser.domain.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserUpdateResult {
+    private User user;
+    private boolean credentialsChanged;
+    // Corte de revocación guardado en users.tokens_valid_after; null si los tokens siguen valiendo.
+    private Instant tokensValidAfter;
+}
@@ -0,0 +1,7 @@
+package com.example.arkauser.domain.model.enums;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -2,7 +2,7 @@ package com.example.arkauser.domain.model.enums;
 
 public enum Rol {
     ADMIN,
-    USER
-    
-
+    USER,
+    // Cuentas de otros microservicios: solo las consultas de usuarios entre servicios.
+    SERVICE
 }
@@ -2,16 +2,28 @@ package com.example.arkauser.domain.ports.in;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.model.UserChange;
+import com.example.arkauser.domain.model.UserImportResult;
+import com.example.arkauser.domain.model.UserLookupResult;
+import com.example.arkauser.domain.model.UserPage;
+import com.example.arkauser.domain.model.UserPatch;
 
 public interface UserUseCase {
 
     User createUser(User user);
+    List<UserImportResult> importUsers(List<User> users);
     User getUserById(Long id);
-    User updateUser(Long id, User user);
+    UserLookupResult getUsersByIds(List<Long> ids);
+    User updateUser(Long id, UserPatch patch);
+    void upgradePasswordHash(User user, String rawPassword);
     void deleteUser(Long id);
-    List<User> getAllUsers();
+    UserPage getUsersAfter(Long afterId, int limit);
+    UserPage getUsersPage(int page, int size);
+    List<UserChange> getChangesSince(Long since, int limit);
+    void exportUsers(Consumer<User> consumer);
     Optional<User> getUserByUsername(String username);
     Optional<User> getUserByEmail(String email);
     List<User> getUsersByRole(String role);
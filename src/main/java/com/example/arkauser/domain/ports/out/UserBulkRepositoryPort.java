@@ -0,0 +1,12 @@
+package com.example.arkauser.domain.ports.out;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.example.arkauser.domain.model.User;
+
+public interface UserBulkRepositoryPort {
+
+    void streamAllUsers(Consumer<User> consumer);
+    List<User> insertUsers(List<User> users);
+}
@@ -0,0 +1,7 @@
+package com.example.arkauser.domain.ports.out;
+
+public interface UserCachePort {
+
+    void evictUser(Long id);
+    void evictAll();
+}
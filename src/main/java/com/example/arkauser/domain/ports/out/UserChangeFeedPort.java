@@ -0,0 +1,10 @@
+package com.example.arkauser.domain.ports.out;
+
+import java.util.List;
+
+import com.example.arkauser.domain.model.UserChange;
+
+public interface UserChangeFeedPort {
+
+    List<UserChange> getChangesSince(long since, int limit);
+}
@@ -0,0 +1,8 @@
+package com.example.arkauser.domain.ports.out;
+
+import java.time.Instant;
+
+public interface UserInvalidationPort {
+
+    void publish(Long userId, boolean revokeTokens, Instant at);
+}
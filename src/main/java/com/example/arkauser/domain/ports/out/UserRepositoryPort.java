@@ -1,19 +1,29 @@
 package com.example.arkauser.domain.ports.out;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.model.UserPage;
+import com.example.arkauser.domain.model.UserPatch;
+import com.example.arkauser.domain.model.UserUpdateResult;
 
 public interface UserRepositoryPort {
 
     User createUser(User user);
     User getUserById(Long id);
-    User updateUser(Long id, User user);
-    void deleteUser(Long id);
-    List<User> getAllUsers();
+    List<User> getUsersByIds(Collection<Long> ids);
+    UserUpdateResult patchUser(Long id, UserPatch patch);
+    boolean updatePassword(Long id, String currentPassword, String newPassword);
+    Instant deleteUser(Long id);
+    UserPage getUsersAfter(Long afterId, int limit);
+    UserPage getUsersPage(int page, int size);
     Optional<User> getUserByUsername(String username);
     Optional<User> getUserByEmail(String email);
+    boolean existsByUsernameOrEmail(String username, String email);
+    List<User> getUsersByUsernamesOrEmails(Collection<String> usernames, Collection<String> emails);
     List<User> getUsersByRole(String role);
     List<User> getUsersByActiveStatus(boolean isActive);
 }
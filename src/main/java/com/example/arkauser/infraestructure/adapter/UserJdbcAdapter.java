@@ -0,0 +1,163 @@
+package com.example.arkauser.infraestructure.adapter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.arkauser.domain.exception.ChangeFeedGapException;
+import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.model.UserChange;
+import com.example.arkauser.domain.model.enums.ChangeType;
+import com.example.arkauser.domain.ports.out.UserBulkRepositoryPort;
+import com.example.arkauser.domain.ports.out.UserChangeFeedPort;
+import com.example.arkauser.infraestructure.adapter.persistence.mapper.UserRowMapper;
+
+@Component
+public class UserJdbcAdapter implements UserBulkRepositoryPort, UserChangeFeedPort {
+
+    static final int EXPORT_FETCH_SIZE = 500;
+    static final int INSERT_BATCH_SIZE = 500;
+
+    private static final String EXPORT_SQL = "select " + UserRowMapper.COLUMNS + " from users order by id";
+
+    // Reserva N ids de la secuencia de la columna identity en un único round trip.
+    private static final String ALLOCATE_IDS_SQL =
+            "select nextval(pg_get_serial_sequence('users', 'id')) from generate_series(1, ?)";
+
+    // Un INSERT por bloque con arrays desanidados; ON CONFLICT descarta las filas que chocan con
+    // uk_users_username/uk_users_email y RETURNING indica cuáles se insertaron realmente.
+    // Solo las filas insertadas generan su evento CREATED en user_outbox, en la misma sentencia.
+    private static final String INSERT_SQL = "with inserted as (insert into users "
+            + "(id, username, email, password, first_name, last_name, phone_number, address, active, country, city, role) "
+            + "select * from unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], "
+            + "?::varchar[], ?::varchar[], ?::boolean[], ?::varchar[], ?::varchar[], ?::varchar[]) "
+            + "on conflict do nothing returning id), "
+            + "outbox as (insert into user_outbox (user_id, event_type) select id, 'CREATED' from inserted) "
+            + "select id from inserted";
+
+    // Cambios ya publicados por el relay, en orden de published_seq. El LEFT JOIN devuelve el estado
+    // actual del usuario (null si se ha borrado): el consumidor aplica la última versión, no un diff.
+    private static final String CHANGES_SQL = "select o.published_seq, o.user_id, o.event_type, o.created_at, "
+            + prefixed("u.", UserRowMapper.COLUMNS)
+            + " from user_outbox o left join users u on u.id = o.user_id"
+            + " where o.published_seq > ? order by o.published_seq limit ?";
+
+    private static final String PURGED_SEQ_SQL = "select purged_seq from user_outbox_watermark";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final UserRowMapper rowMapper = new UserRowMapper();
+
+    public UserJdbcAdapter(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void streamAllUsers(Consumer<User> consumer) {
+        // PostgreSQL solo usa un cursor (fetch size) con autocommit desactivado, de ahí la transacción.
+        readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(EXPORT_SQL, rs -> {
+                    consumer.accept(rowMapper.mapRow(rs, rs.getRow()));
+                })
+        );
+    }
+
+    @Override
+    public List<User> insertUsers(List<User> users) {
+        if (users.isEmpty()) return List.of();
+
+        return writeTransaction.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, users.size());
+            List<User> rows = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                User u = users.get(i);
+                rows.add(new User(
+                        ids.get(i),
+                        u.getUsername(),
+                        u.getEmail(),
+                        u.getPassword(),
+                        u.getFirstName(),
+                        u.getLastName(),
+                        u.getPhoneNumber(),
+                        u.getAddress(),
+                        u.isActive(),
+                        u.getCountry(),
+                        u.getCity(),
+                        u.getRole(),
+                        0L
+                ));
+            }
+
+            var inserted = new HashSet<Long>(rows.size() * 2);
+            for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+                var chunk = rows.subList(from, Math.min(from + INSERT_BATCH_SIZE, rows.size()));
+                inserted.addAll(jdbcTemplate.query(con -> insertStatement(con, chunk), (rs, rowNum) -> rs.getLong(1)));
+            }
+            return rows.stream().filter(u -> inserted.contains(u.getId())).toList();
+        });
+    }
+
+    @Override
+    public List<UserChange> getChangesSince(long since, int limit) {
+        return readOnlyTransaction.execute(status -> {
+            List<UserChange> changes = jdbcTemplate.query(CHANGES_SQL, (rs, rowNum) -> new UserChange(
+                    rs.getLong("published_seq"),
+                    rs.getLong("user_id"),
+                    ChangeType.valueOf(rs.getString("event_type")),
+                    rs.getTimestamp("created_at").toInstant(),
+                    rs.getObject("id") != null ? rowMapper.mapRow(rs, rowNum) : null
+            ), since, limit);
+            // La marca se lee después de los cambios: una purga entre ambas lecturas da como mucho un 410
+            // de más, nunca una página a la que le falten eventos.
+            Long purged = jdbcTemplate.queryForObject(PURGED_SEQ_SQL, Long.class);
+            if (purged != null && since < purged) throw new ChangeFeedGapException(since, purged);
+            return changes;
+        });
+    }
+
+    private static PreparedStatement insertStatement(Connection con, List<User> chunk) throws SQLException {
+        var ps = con.prepareStatement(INSERT_SQL);
+        ps.setArray(1, con.createArrayOf("bigint", column(chunk, User::getId)));
+        ps.setArray(2, con.createArrayOf("varchar", column(chunk, User::getUsername)));
+        ps.setArray(3, con.createArrayOf("varchar", column(chunk, User::getEmail)));
+        ps.setArray(4, con.createArrayOf("varchar", column(chunk, User::getPassword)));
+        ps.setArray(5, con.createArrayOf("varchar", column(chunk, User::getFirstName)));
+        ps.setArray(6, con.createArrayOf("varchar", column(chunk, User::getLastName)));
+        ps.setArray(7, con.createArrayOf("varchar", column(chunk, User::getPhoneNumber)));
+        ps.setArray(8, con.createArrayOf("varchar", column(chunk, User::getAddress)));
+        ps.setArray(9, con.createArrayOf("boolean", column(chunk, User::isActive)));
+        ps.setArray(10, con.createArrayOf("varchar", column(chunk, User::getCountry)));
+        ps.setArray(11, con.createArrayOf("varchar", column(chunk, User::getCity)));
+        ps.setArray(12, con.createArrayOf("varchar", column(chunk, User::getRole)));
+        return ps;
+    }
+
+    private static Object[] column(List<User> chunk, Function<User, ?> getter) {
+        return chunk.stream().map(getter).toArray();
+    }
+
+    private static String prefixed(String alias, String columns) {
+        return Arrays.stream(columns.split(",\\s*"))
+                .map(c -> alias + c)
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -1,13 +1,27 @@
 package com.example.arkauser.infraestructure.adapter;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.arkauser.domain.exception.UserAlreadyExistsException;
 import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.model.UserPage;
+import com.example.arkauser.domain.model.UserPatch;
+import com.example.arkauser.domain.model.UserUpdateResult;
 import com.example.arkauser.domain.model.enums.Rol;
 import com.example.arkauser.domain.ports.out.UserRepositoryPort;
+import com.example.arkauser.infraestructure.adapter.persistence.mapper.UserRowMapper;
 import com.example.arkauser.infraestructure.adapter.persistence.repository.UserJpaRepository;
 import com.example.arkauser.infraestructure.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
@@ -16,49 +30,204 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UserPersistenceAdapter implements UserRepositoryPort {
 
+    // Un único UPDATE por petición: la subconsulta "old" aporta los valores previos para decidir
+    // si hay que revocar tokens sin una lectura adicional.
+    // Cada mutación escribe su fila de user_outbox en la misma sentencia (CTE de modificación), así
+    // el evento y el cambio se confirman o se descartan juntos sin abrir una transacción explícita.
+    private static final String PATCH_SQL = """
+            with updated as (
+                update users set %s, version = version + 1, updated_at = now()
+                from (select id as old_id, username as old_username, email as old_email,
+                             password as old_password, role as old_role, active as old_active
+                      from users where id = :id) old
+                where users.id = old.old_id%s
+                returning %s,
+                    (old_username is distinct from username or old_email is distinct from email
+                     or old_password is distinct from password or old_role is distinct from role
+                     or (old_active and not active)) as credentials_changed,
+                    tokens_valid_after
+            ), outbox as (
+                insert into user_outbox (user_id, event_type) select id, 'UPDATED' from updated
+            )
+            select * from updated""";
+
+    // Las restricciones únicas deciden si el usuario existe: sin consultas previas ni carrera entre ellas.
+    private static final String INSERT_SQL = """
+            with inserted as (
+                insert into users (username, email, password, first_name, last_name, phone_number, address, active, country, city, role)
+                values (:username, :email, :password, :firstName, :lastName, :phoneNumber, :address, :active, :country, :city, :role)
+                on conflict do nothing
+                returning %s
+            ), outbox as (
+                insert into user_outbox (user_id, event_type) select id, 'CREATED' from inserted
+            )
+            select * from inserted""".formatted(UserRowMapper.COLUMNS);
+
+    // created_at del evento es el corte de revocación: el mismo que se reconstruye desde la outbox.
+    private static final String DELETE_SQL = """
+            with deleted as (
+                delete from users where id = :id returning id
+            ), outbox as (
+                insert into user_outbox (user_id, event_type) select id, 'DELETED' from deleted
+                returning created_at
+            )
+            select created_at from outbox""";
+
+    // Compare-and-set sobre el hash leído, con el mismo versionado y evento de outbox que el resto de mutaciones.
+    private static final String UPDATE_PASSWORD_SQL = """
+            with updated as (
+                update users set password = :newPassword, version = version + 1, updated_at = now()
+                where id = :id and password = :currentPassword
+                returning id
+            ), outbox as (
+                insert into user_outbox (user_id, event_type) select id, 'UPDATED' from updated
+            )
+            select count(*) from updated""";
+
+    // Un solo round trip para N ids. El array se enlaza como parámetro único: con NamedParameterJdbcTemplate
+    // una colección se expandiría a N placeholders y cada tamaño de lote sería una sentencia distinta.
+    private static final String SELECT_BY_IDS_SQL =
+            "select " + UserRowMapper.COLUMNS + " from users where id = any(?)";
+
+    private static final UserRowMapper ROW_MAPPER = new UserRowMapper();
+
     private final UserJpaRepository userJpaRepository;
     private final UserMapper userMapper;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
 
     @Override
     public User createUser(User user) {
-        return userMapper.toDomain(userJpaRepository.save(userMapper.toEntity(user)));
+        var params = new MapSqlParameterSource()
+                .addValue("username", user.getUsername())
+                .addValue("email", user.getEmail())
+                .addValue("password", user.getPassword())
+                .addValue("firstName", user.getFirstName())
+                .addValue("lastName", user.getLastName())
+                .addValue("phoneNumber", user.getPhoneNumber())
+                .addValue("address", user.getAddress())
+                .addValue("active", user.isActive())
+                .addValue("country", user.getCountry())
+                .addValue("city", user.getCity())
+                .addValue("role", user.getRole());
+        return jdbcTemplate.query(INSERT_SQL, params, ROW_MAPPER)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new UserAlreadyExistsException("User already exists: " + user.getUsername()));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User getUserById(Long id) {
-        return userJpaRepository.findById(id)
-                .map(userMapper::toDomain)
+        return userJpaRepository.findSummaryById(id)
+                .map(userMapper::summaryToDomain)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
     }
 
     @Override
-    public User updateUser(Long id, User user) {
-        return userJpaRepository.findById(id)
-                .map(existingUser -> {
-                    existingUser.setUsername(user.getUsername());
-                    existingUser.setEmail(user.getEmail());
-                    existingUser.setPassword(user.getPassword());
-                    existingUser.setRole(toEnum(user.getRole()));
-                    existingUser.setActive(user.isActive());
-                    return userMapper.toDomain(userJpaRepository.save(existingUser));
-                })
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return jdbcTemplate.getJdbcTemplate().query(con -> {
+            var ps = con.prepareStatement(SELECT_BY_IDS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    @Override
+    public UserUpdateResult patchUser(Long id, UserPatch patch) {
+        var sets = new ArrayList<String>();
+        var params = new MapSqlParameterSource("id", id);
+        set(sets, params, "username", patch.getUsername());
+        set(sets, params, "email", patch.getEmail());
+        set(sets, params, "password", patch.getPassword());
+        set(sets, params, "first_name", patch.getFirstName());
+        set(sets, params, "last_name", patch.getLastName());
+        set(sets, params, "phone_number", patch.getPhoneNumber());
+        set(sets, params, "address", patch.getAddress());
+        set(sets, params, "active", patch.getActive());
+        set(sets, params, "country", patch.getCountry());
+        set(sets, params, "city", patch.getCity());
+        set(sets, params, "role", patch.getRole());
+
+        // Mismo criterio que credentials_changed, con los valores nuevos del patch: el corte de revocación
+        // queda guardado en la misma sentencia y sobrevive a una notificación perdida.
+        var revokes = new ArrayList<String>();
+        if (patch.getUsername() != null) revokes.add("old_username is distinct from :username");
+        if (patch.getEmail() != null) revokes.add("old_email is distinct from :email");
+        if (patch.getPassword() != null) revokes.add("old_password is distinct from :password");
+        if (patch.getRole() != null) revokes.add("old_role is distinct from :role");
+        if (patch.getActive() != null) revokes.add("(old_active and not :active)");
+        if (!revokes.isEmpty()) {
+            sets.add("tokens_valid_after = case when " + String.join(" or ", revokes)
+                    + " then clock_timestamp() else tokens_valid_after end");
+        }
+
+        if (sets.isEmpty()) {
+            User current = getUserById(id);
+            if (patch.getVersion() != null && !patch.getVersion().equals(current.getVersion())) throw versionConflict(id);
+            return new UserUpdateResult(current, false, null);
+        }
+
+        String versionCheck = "";
+        if (patch.getVersion() != null) {
+            versionCheck = " and users.version = :version";
+            params.addValue("version", patch.getVersion());
+        }
+
+        var rows = jdbcTemplate.query(
+                PATCH_SQL.formatted(String.join(", ", sets), versionCheck, UserRowMapper.COLUMNS),
+                params,
+                (rs, rowNum) -> {
+                    boolean credentialsChanged = rs.getBoolean("credentials_changed");
+                    Timestamp validAfter = rs.getTimestamp("tokens_valid_after");
+                    return new UserUpdateResult(ROW_MAPPER.mapRow(rs, rowNum), credentialsChanged,
+                            credentialsChanged && validAfter != null ? validAfter.toInstant() : null);
+                });
+        if (!rows.isEmpty()) return rows.get(0);
+
+        if (patch.getVersion() != null && userJpaRepository.existsById(id)) throw versionConflict(id);
+        throw new RuntimeException("User not found with id: " + id);
+    }
+
+    @Override
+    public boolean updatePassword(Long id, String currentPassword, String newPassword) {
+        var params = new MapSqlParameterSource("id", id)
+                .addValue("currentPassword", currentPassword)
+                .addValue("newPassword", newPassword);
+        Integer updated = jdbcTemplate.queryForObject(UPDATE_PASSWORD_SQL, params, Integer.class);
+        return updated != null && updated > 0;
     }
 
     @Override
-    public void deleteUser(Long id) {
-        if (!userJpaRepository.existsById(id)) {
+    public Instant deleteUser(Long id) {
+        var deletedAt = jdbcTemplate.queryForList(DELETE_SQL, new MapSqlParameterSource("id", id), Timestamp.class);
+        if (deletedAt.isEmpty()) {
             throw new RuntimeException("User not found with id: " + id);
         }
-        userJpaRepository.deleteById(id);
+        return deletedAt.get(0).toInstant();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserPage getUsersAfter(Long afterId, int limit) {
+        var rows = userJpaRepository.findSummariesAfter(afterId != null ? afterId : 0L, PageRequest.ofSize(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        var items = rows.stream()
+                .limit(limit)
+                .map(userMapper::summaryToDomain)
+                .toList();
+        return new UserPage(items, hasMore ? items.get(items.size() - 1).getId() : null);
     }
 
     @Override
-    public List<User> getAllUsers() {
-        return userJpaRepository.findAll()
+    @Transactional(readOnly = true)
+    public UserPage getUsersPage(int page, int size) {
+        var slice = userJpaRepository.findSummaries(PageRequest.of(page, size));
+        var items = slice.getContent()
                 .stream()
-                .map(userMapper::toDomain)
+                .map(userMapper::summaryToDomain)
                 .toList();
+        return new UserPage(items, slice.hasNext() && !items.isEmpty() ? items.get(items.size() - 1).getId() : null);
     }
 
     @Override
@@ -69,23 +238,41 @@ public class UserPersistenceAdapter implements UserRepositoryPort {
 
     @Override
     public Optional<User> getUserByEmail(String email) {
-        return userJpaRepository.findByEmail(email)
+        if (email == null) return Optional.empty();
+        return userJpaRepository.findByEmailIgnoreCase(email.trim())
                 .map(userMapper::toDomain);
     }
 
     @Override
-    public List<User> getUsersByRole(String role) {
-        return userJpaRepository.findByRole(toEnum(role))
+    public boolean existsByUsernameOrEmail(String username, String email) {
+        return userJpaRepository.existsByUsernameOrLowerEmail(username, email);
+    }
+
+    @Override
+    public List<User> getUsersByUsernamesOrEmails(Collection<String> usernames, Collection<String> emails) {
+        if (usernames.isEmpty() && emails.isEmpty()) return List.of();
+        var lowerEmails = emails.stream().map(String::toLowerCase).toList();
+        return userJpaRepository.findByUsernameInOrLowerEmailIn(usernames, lowerEmails)
                 .stream()
                 .map(userMapper::toDomain)
                 .toList();
     }
 
     @Override
-    public List<User> getUsersByActiveStatus(boolean isActive) {
-        return userJpaRepository.findByActive(isActive)
+    @Transactional(readOnly = true)
+    public List<User> getUsersByRole(String role) {
+        return userJpaRepository.findSummariesByRole(toEnum(role))
                 .stream()
-                .map(userMapper::toDomain)
+                .map(userMapper::summaryToDomain)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> getUsersByActiveStatus(boolean isActive) {
+        var rows = isActive ? userJpaRepository.findActiveSummaries() : userJpaRepository.findInactiveSummaries();
+        return rows.stream()
+                .map(userMapper::summaryToDomain)
                 .toList();
     }
 
@@ -97,4 +284,14 @@ public class UserPersistenceAdapter implements UserRepositoryPort {
             return Rol.USER;
         }
     }
+
+    private static void set(List<String> sets, MapSqlParameterSource params, String column, Object value) {
+        if (value == null) return;
+        sets.add(column + " = :" + column);
+        params.addValue(column, value);
+    }
+
+    private static OptimisticLockingFailureException versionConflict(Long id) {
+        return new OptimisticLockingFailureException("User " + id + " was modified concurrently");
+    }
 }
@@ -2,6 +2,8 @@ package com.example.arkauser.infraestructure.adapter.persistence.entity;
 
 import com.example.arkauser.domain.model.enums.Rol;
 import jakarta.persistence.*;
+import java.time.Instant;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.*;
 
 @Entity
@@ -9,6 +11,10 @@ import lombok.*;
        uniqueConstraints = {
            @UniqueConstraint(name="uk_users_username", columnNames="username"),
            @UniqueConstraint(name="uk_users_email", columnNames="email")
+       },
+       // El esquema lo gestiona Flyway (db/migration); aquí solo se documenta.
+       indexes = {
+           @Index(name="idx_users_role_active", columnList="role, active")
 })
 @Getter
 @Setter
@@ -44,5 +50,14 @@ public class UserEntity {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private Rol role;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Lo mantiene la base de datos (default now() y las sentencias de escritura del adaptador).
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+    private Instant updatedAt;
 }
 
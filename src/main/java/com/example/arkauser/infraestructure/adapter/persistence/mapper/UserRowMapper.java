@@ -0,0 +1,33 @@
+package com.example.arkauser.infraestructure.adapter.persistence.mapper;
+
+import com.example.arkauser.domain.model.User;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class UserRowMapper implements RowMapper<User> {
+
+    // Columnas de lectura; nunca incluye el hash de la contraseña.
+    public static final String COLUMNS =
+            "id, username, email, first_name, last_name, phone_number, address, active, country, city, role, version";
+
+    @Override
+    public User mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new User(
+                rs.getLong("id"),
+                rs.getString("username"),
+                rs.getString("email"),
+                null,
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("phone_number"),
+                rs.getString("address"),
+                rs.getBoolean("active"),
+                rs.getString("country"),
+                rs.getString("city"),
+                rs.getString("role"),
+                rs.getLong("version")
+        );
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.arkauser.infraestructure.adapter.persistence.projection;
+
+import com.example.arkauser.domain.model.enums.Rol;
+
+public record UserSummary(
+        Long id,
+        String username,
+        String email,
+        String firstName,
+        String lastName,
+        String phoneNumber,
+        String address,
+        boolean active,
+        String country,
+        String city,
+        Rol role,
+        Long version
+) {
+}
@@ -2,20 +2,56 @@ package com.example.arkauser.infraestructure.adapter.persistence.repository;
 
 import com.example.arkauser.domain.model.enums.Rol;
 import com.example.arkauser.infraestructure.adapter.persistence.entity.UserEntity;
+import com.example.arkauser.infraestructure.adapter.persistence.projection.UserSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserJpaRepository extends JpaRepository<UserEntity, Long> {
 
+    // Solo las columnas de la respuesta: sin hash de contraseña ni entidades gestionadas.
+    String SUMMARY_SELECT = "select new com.example.arkauser.infraestructure.adapter.persistence.projection.UserSummary("
+            + "u.id, u.username, u.email, u.firstName, u.lastName, u.phoneNumber, u.address, u.active, u.country, u.city, u.role, u.version) "
+            + "from UserEntity u";
+
     Optional<UserEntity> findByUsername(String username);
 
-    Optional<UserEntity> findByEmail(String email);
+    // lower(email) coincide con idx_users_email_lower; el email se compara sin distinguir mayúsculas.
+    @Query("select u from UserEntity u where lower(u.email) = lower(:email)")
+    Optional<UserEntity> findByEmailIgnoreCase(@Param("email") String email);
+
+    @Query("select u from UserEntity u where u.username in :usernames or lower(u.email) in :emails")
+    List<UserEntity> findByUsernameInOrLowerEmailIn(@Param("usernames") Collection<String> usernames,
+                                                    @Param("emails") Collection<String> emails);
+
+    // Dos búsquedas por índice (uk_users_username, idx_users_email_lower) sin cargar la entidad.
+    @Query("select count(u) > 0 from UserEntity u where u.username = :username or lower(u.email) = lower(:email)")
+    boolean existsByUsernameOrLowerEmail(@Param("username") String username, @Param("email") String email);
+
+    @Query(SUMMARY_SELECT + " where u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY_SELECT + " where u.id > :afterId order by u.id")
+    List<UserSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " order by u.id")
+    Slice<UserSummary> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " where u.role = :role")
+    List<UserSummary> findSummariesByRole(@Param("role") Rol role);
 
-    List<UserEntity> findByRole(Rol role);
+    @Query(SUMMARY_SELECT + " where u.active = true")
+    List<UserSummary> findActiveSummaries();
 
-    List<UserEntity> findByActive(boolean active);
+    // Literal y no parámetro: así el planner puede usar el índice parcial idx_users_inactive.
+    @Query(SUMMARY_SELECT + " where u.active = false")
+    List<UserSummary> findInactiveSummaries();
 }
@@ -1,23 +1,38 @@
 package com.example.arkauser.infraestructure.adapter.web.controller;
 
+import com.example.arkauser.application.exception.PasswordHashingSaturatedException;
 import com.example.arkauser.application.service.JwtService;
+import com.example.arkauser.application.service.PasswordHasher;
 import com.example.arkauser.domain.model.User;
 import com.example.arkauser.domain.model.enums.Rol;
 import com.example.arkauser.domain.ports.in.UserUseCase;
-import com.example.arkauser.infraestructure.client.ProductClient;
+import com.example.arkauser.infraestructure.client.CachingProductClient;
+import com.example.arkauser.infraestructure.dto.ProductBatchRequestDto;
 import com.example.arkauser.infraestructure.dto.ProductDto;
+import com.example.arkauser.infraestructure.dto.UserLookupRequestDto;
 import com.example.arkauser.infraestructure.dto.UserRequestDto;
 import com.example.arkauser.infraestructure.dto.UserResponseDto;
 import com.example.arkauser.infraestructure.mapper.UserMapper;
+import com.example.arkauser.infraestructure.security.LoginThrottle;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/users")
@@ -27,24 +42,16 @@ public class UserController {
     private final UserUseCase useCase;
     private final UserMapper mapper;
     private final JwtService jwtService;
-    private final PasswordEncoder encoder;
-    private final ProductClient productClient;
+    private final PasswordHasher passwordHasher;
+    private final LoginThrottle loginThrottle;
+    private final CachingProductClient productClient;
+    private final ObjectMapper objectMapper;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     @PostMapping("/create")
     public ResponseEntity<?> createUser(@RequestBody UserRequestDto userRequestDto) {
-        final String email = userRequestDto.getEmail() != null ? userRequestDto.getEmail().trim().toLowerCase() : null;
-        final String username = userRequestDto.getUsername();
-
-        var emailExists = email != null && useCase.getUserByEmail(email).isPresent();
-        var usernameExists = username != null && useCase.getUserByUsername(username).isPresent();
-
-        if (emailExists || usernameExists) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("message", "El usuario ya existe, no se pueden crear usuarios repetidos"));
-        }
-
         User user = mapper.requestToDomain(userRequestDto);
-        user.setEmail(email);
 
         // ❌ No encriptes aquí. Se encripta automáticamente en UserService
         var createdUser = useCase.createUser(user);
@@ -57,8 +64,19 @@ public class UserController {
                 ));
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/import")
+    public ResponseEntity<?> importUsers(@RequestBody List<UserRequestDto> userRequestDtos) {
+        var users = userRequestDtos.stream().map(mapper::requestToDomain).toList();
+        var results = useCase.importUsers(users);
+        return ResponseEntity.ok(Map.of(
+                "message", "Importación de usuarios procesada",
+                "data", results
+        ));
+    }
+
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> body) {
+    public ResponseEntity<?> login(@RequestBody Map<String, String> body, HttpServletRequest request) {
         final String rawIdentifier = body.get("email") != null && !body.get("email").isBlank()
                 ? body.get("email").trim().toLowerCase()
                 : (body.get("username") != null ? body.get("username").trim() : null);
@@ -69,20 +87,34 @@ public class UserController {
                     .body(Map.of("message", "Debe proporcionar usuario/email y contraseña"));
         }
 
+        if (!loginThrottle.tryAcquire(rawIdentifier, request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginThrottle.retryAfter().toSeconds()))
+                    .body(Map.of("message", "Demasiados intentos de inicio de sesión, inténtalo más tarde"));
+        }
+
         var userOpt = useCase.getUserByEmail(rawIdentifier)
                 .or(() -> useCase.getUserByUsername(rawIdentifier));
 
         if (userOpt.isEmpty()) {
+            // Se paga un BCrypt igualmente: la respuesta no revela si el usuario existe.
+            passwordHasher.matchesDummy(password);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("message", "Credenciales inválidas"));
         }
 
         var user = userOpt.get();
-        if (!encoder.matches(password, user.getPassword())) {
+        if (!passwordHasher.matches(password, user.getPassword())) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("message", "Credenciales inválidas"));
         }
 
+        try {
+            useCase.upgradePasswordHash(user, password);
+        } catch (PasswordHashingSaturatedException ex) {
+            // El rehash es oportunista: se reintenta en el siguiente login.
+        }
+
         String token = jwtService.generateToken(
                 user.getEmail() != null ? user.getEmail() : user.getUsername(),
                 user.getId(),
@@ -106,22 +138,91 @@ public class UserController {
         ));
     }
 
-    @PreAuthorize("hasRole('ADMIN')")
-    @GetMapping
-    public ResponseEntity<?> getAllUsers() {
-        var users = useCase.getAllUsers();
-        var response = users.stream().map(mapper::toResponseDto).toList();
+    // Consulta entre servicios: basta una cuenta SERVICE, sin token de administrador.
+    @PreAuthorize("hasAnyRole('ADMIN', 'SERVICE')")
+    @PostMapping("/lookup")
+    public ResponseEntity<?> lookupUsers(@RequestBody UserLookupRequestDto request) {
+        var result = useCase.getUsersByIds(request.getIds());
+        var found = new LinkedHashMap<Long, UserResponseDto>();
+        result.getFound().forEach((id, user) -> found.put(id, mapper.toResponseDto(user)));
         return ResponseEntity.ok(Map.of(
-                "message", "Listado de usuarios obtenido correctamente",
-                "data", response
+                "message", "Usuarios consultados",
+                "data", found,
+                "missing", result.getMissing()
         ));
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public ResponseEntity<?> getAllUsers(@RequestParam(name = "limit", defaultValue = "50") int limit,
+                                         @RequestParam(name = "after", required = false) Long after,
+                                         @RequestParam(name = "page", required = false) Integer page) {
+        var users = page != null
+                ? useCase.getUsersPage(page, limit)
+                : useCase.getUsersAfter(after, limit);
+        var response = users.getItems().stream().map(mapper::toResponseDto).toList();
+
+        var body = new LinkedHashMap<String, Object>();
+        body.put("message", "Listado de usuarios obtenido correctamente");
+        body.put("data", response);
+        body.put("next_cursor", users.getNextCursor());
+        return ResponseEntity.ok(body);
+    }
+
+    // Feed incremental: el consumidor guarda next_cursor y vuelve a pedir desde ahí.
+    // "user" trae el estado actual del usuario (null si se ha borrado), no el de cuando ocurrió el evento.
+    // Si la purga ya eliminó eventos posteriores al cursor responde 410 con reset_cursor.
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(name = "since", defaultValue = "0") long since,
+                                        @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        var changes = useCase.getChangesSince(since, limit);
+        var response = changes.stream().map(mapper::toChangeDto).toList();
+
+        var body = new LinkedHashMap<String, Object>();
+        body.put("message", "Cambios de usuarios obtenidos correctamente");
+        body.put("data", response);
+        body.put("next_cursor", changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq());
+        return ResponseEntity.ok(body);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+                // Sin el separador por defecto (un espacio) entre valores raíz: cada línea la cierra el '\n'.
+                generator.setRootValueSeparator(null);
+                useCase.exportUsers(user -> {
+                    try {
+                        generator.writeObject(mapper.toResponseDto(user));
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        var response = ResponseEntity.ok().contentType(NDJSON);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping("/update/{id}")
     public ResponseEntity<?> updateUser(@PathVariable("id") Long id, @RequestBody UserRequestDto userRequestDto) {
-        var user = mapper.requestToDomain(userRequestDto);
-        var updatedUser = useCase.updateUser(id, user);
+        return patchUser(id, userRequestDto);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchUser(@PathVariable("id") Long id, @RequestBody UserRequestDto userRequestDto) {
+        if (userRequestDto.getId() != null && !id.equals(userRequestDto.getId())) {
+            throw new IllegalArgumentException("El ID del usuario no coincide con el ID proporcionado");
+        }
+        var updatedUser = useCase.updateUser(id, mapper.requestToPatch(userRequestDto));
         var response = mapper.toResponseDto(updatedUser);
         return ResponseEntity.ok(Map.of(
                 "message", "El usuario se ha actualizado correctamente",
@@ -143,4 +244,16 @@ public class UserController {
     public ResponseEntity<ProductDto> getProductFromProductService(@PathVariable Long id) {
         return ResponseEntity.ok(productClient.getProductById(id));
     }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/products:batch")
+    public ResponseEntity<?> getProductsFromProductService(@RequestBody ProductBatchRequestDto request) {
+        var ids = request.getIds() != null ? request.getIds() : List.<Long>of();
+        var result = productClient.getProductsByIds(ids);
+        return ResponseEntity.ok(Map.of(
+                "message", "Productos consultados",
+                "data", result.found(),
+                "failed", result.failed()
+        ));
+    }
 }
@@ -0,0 +1,63 @@
+package com.example.arkauser.infraestructure.adapter.web.handler;
+
+import com.example.arkauser.application.exception.PasswordHashingSaturatedException;
+import com.example.arkauser.domain.exception.ChangeFeedGapException;
+import com.example.arkauser.domain.exception.UserAlreadyExistsException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(PasswordHashingSaturatedException.class)
+    public ResponseEntity<?> handleHashingSaturated(PasswordHashingSaturatedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", "El servicio está ocupado, inténtalo de nuevo en unos segundos"));
+    }
+
+    // Validaciones de entrada del servicio (límites de lote, página o cursor negativos, campos vacíos).
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", ex.getMessage() != null ? ex.getMessage() : "Petición no válida"));
+    }
+
+    @ExceptionHandler({UserAlreadyExistsException.class, DuplicateKeyException.class})
+    public ResponseEntity<?> handleUserAlreadyExists(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "El usuario ya existe, no se pueden crear usuarios repetidos"));
+    }
+
+    // El consumidor vuelve a cargar /api/users/export y sigue el feed desde reset_cursor.
+    @ExceptionHandler(ChangeFeedGapException.class)
+    public ResponseEntity<?> handleChangeFeedGap(ChangeFeedGapException ex) {
+        return ResponseEntity.status(HttpStatus.GONE)
+                .body(Map.of(
+                        "message", "El cursor es anterior a los cambios conservados; hay que resincronizar con la exportación completa",
+                        "reset_required", true,
+                        "reset_cursor", ex.getResetCursor()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleVersionConflict(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "El usuario fue modificado por otra petición, vuelve a consultarlo e inténtalo de nuevo"));
+    }
+
+    @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+    public ResponseEntity<?> handleProductServiceUnavailable(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("message", "El servicio de productos no está disponible en este momento"));
+    }
+}
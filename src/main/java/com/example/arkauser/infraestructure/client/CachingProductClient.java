@@ -0,0 +1,160 @@
+package com.example.arkauser.infraestructure.client;
+
+import com.example.arkauser.infraestructure.dto.ProductDto;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class CachingProductClient {
+
+    private final ProductClient productClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final AsyncLoadingCache<Long, ProductDto> cache;
+    private final Cache<Long, ProductDto> lastKnown;
+    private final boolean serveStale;
+    private final Counter staleServed;
+    private final Duration callDeadline;
+    private final int maxBatchSize;
+
+    // AsyncLoadingCache comparte el mismo future entre peticiones concurrentes del mismo id,
+    // así que N lecturas simultáneas producen una sola llamada a product-service.
+    // Con spring.threads.virtual.enabled cada llamada remota corre en un hilo virtual: el cliente
+    // java.net.http de Feign no fija el carrier. Un semáforo del tamaño del bulkhead hace esperar a los
+    // que sobran, igual que la cola del pool fijo; sin él un lote grande llenaría el bulkhead y fallaría.
+    // Sin hilos virtuales se mantiene el pool fijo de product-client.threads hilos de plataforma.
+    public CachingProductClient(ProductClient productClient,
+                                CircuitBreaker productServiceCircuitBreaker,
+                                Bulkhead productServiceBulkhead,
+                                MeterRegistry meterRegistry,
+                                @Value("${product-client.cache.max-size:5000}") long maxSize,
+                                @Value("${product-client.cache.ttl:30s}") Duration ttl,
+                                @Value("${product-client.threads:16}") int threads,
+                                @Value("${product-client.call-deadline:2s}") Duration callDeadline,
+                                @Value("${product-client.max-batch-size:100}") int maxBatchSize,
+                                @Value("${product-client.serve-stale:true}") boolean serveStale,
+                                @Value("${product-client.stale-ttl:10m}") Duration staleTtl,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.productClient = productClient;
+        this.circuitBreaker = productServiceCircuitBreaker;
+        this.bulkhead = productServiceBulkhead;
+        this.callDeadline = callDeadline;
+        this.maxBatchSize = maxBatchSize;
+        this.serveStale = serveStale;
+        this.staleServed = Counter.builder("product.client.stale.served")
+                .description("Respuestas servidas desde la última copia conocida por fallo de product-service")
+                .register(meterRegistry);
+        this.inFlight = virtualThreads
+                ? new Semaphore(productServiceBulkhead.getBulkheadConfig().getMaxConcurrentCalls())
+                : null;
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("product-client-", 0).factory())
+                : Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("product-client-"));
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(staleTtl)
+                .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .executor(executor)
+                .recordStats()
+                .buildAsync(this::fetch);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "products");
+    }
+
+    public ProductDto getProductById(Long id) {
+        try {
+            return cache.get(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    public ProductBatchResult getProductsByIds(Collection<Long> ids) {
+        var unique = new LinkedHashSet<Long>();
+        ids.forEach(id -> {
+            if (id != null) unique.add(id);
+        });
+        if (unique.size() > maxBatchSize) {
+            throw new IllegalArgumentException("No se pueden consultar más de " + maxBatchSize + " productos por petición");
+        }
+
+        // Se espera sobre una copia: el timeout no debe completar el future compartido de la caché.
+        var pending = new LinkedHashMap<Long, CompletableFuture<ProductDto>>();
+        for (Long id : unique) {
+            pending.put(id, cache.get(id).copy().orTimeout(callDeadline.toMillis(), TimeUnit.MILLISECONDS));
+        }
+        CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new))
+                .exceptionally(ex -> null)
+                .join();
+
+        var found = new LinkedHashMap<Long, ProductDto>();
+        var failed = new ArrayList<Long>();
+        pending.forEach((id, future) -> {
+            if (future.isCompletedExceptionally() || future.join() == null) {
+                failed.add(id);
+            } else {
+                found.put(id, future.join());
+            }
+        });
+        return new ProductBatchResult(found, failed);
+    }
+
+    private ProductDto fetch(Long id) {
+        if (inFlight == null) return fetchRemote(id);
+        inFlight.acquireUninterruptibly();
+        try {
+            return fetchRemote(id);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private ProductDto fetchRemote(Long id) {
+        try {
+            ProductDto product = circuitBreaker.executeSupplier(
+                    Bulkhead.decorateSupplier(bulkhead, () -> productClient.getProductById(id)));
+            if (product != null) lastKnown.put(id, product);
+            return product;
+        } catch (RuntimeException e) {
+            ProductDto stale = serveStale && !(e instanceof FeignException.FeignClientException)
+                    ? lastKnown.getIfPresent(id)
+                    : null;
+            if (stale == null) throw e;
+            staleServed.increment();
+            return stale;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
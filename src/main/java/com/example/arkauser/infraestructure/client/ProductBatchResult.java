@@ -0,0 +1,9 @@
+package com.example.arkauser.infraestructure.client;
+
+import com.example.arkauser.infraestructure.dto.ProductDto;
+
+import java.util.List;
+import java.util.Map;
+
+public record ProductBatchResult(Map<Long, ProductDto> found, List<Long> failed) {
+}
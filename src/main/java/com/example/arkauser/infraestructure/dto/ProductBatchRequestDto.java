@@ -0,0 +1,14 @@
+package com.example.arkauser.infraestructure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchRequestDto {
+    private List<Long> ids;
+}
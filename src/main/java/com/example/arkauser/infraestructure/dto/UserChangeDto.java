@@ -0,0 +1,19 @@
+package com.example.arkauser.infraestructure.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserChangeDto {
+
+    private Long seq;
+    private Long userId;
+    private String type;
+    private Instant occurredAt;
+    private UserResponseDto user;
+}
@@ -45,5 +45,7 @@ public class UserRequestDto {
 
     @NotBlank(message = "Role is required")
     private String role;
+
+    private Long version;
 }
 
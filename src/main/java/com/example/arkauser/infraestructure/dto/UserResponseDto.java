@@ -20,5 +20,6 @@ public class UserResponseDto {
     private String country;
     private String city;
     private String role;
+    private Long version;
 }
 
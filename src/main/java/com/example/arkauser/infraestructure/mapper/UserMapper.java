@@ -1,8 +1,12 @@
 package com.example.arkauser.infraestructure.mapper;
 
 import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.model.UserChange;
+import com.example.arkauser.domain.model.UserPatch;
 import com.example.arkauser.domain.model.enums.Rol;
 import com.example.arkauser.infraestructure.adapter.persistence.entity.UserEntity;
+import com.example.arkauser.infraestructure.adapter.persistence.projection.UserSummary;
+import com.example.arkauser.infraestructure.dto.UserChangeDto;
 import com.example.arkauser.infraestructure.dto.UserRequestDto;
 import com.example.arkauser.infraestructure.dto.UserResponseDto;
 import org.springframework.stereotype.Component;
@@ -24,7 +28,27 @@ public class UserMapper {
                 entity.isActive(),
                 entity.getCountry(),
                 entity.getCity(),
-                entity.getRole() != null ? entity.getRole().name() : null
+                entity.getRole() != null ? entity.getRole().name() : null,
+                entity.getVersion()
+        );
+    }
+
+    public User summaryToDomain(UserSummary summary) {
+        if (summary == null) return null;
+        return new User(
+                summary.id(),
+                summary.username(),
+                summary.email(),
+                null,
+                summary.firstName(),
+                summary.lastName(),
+                summary.phoneNumber(),
+                summary.address(),
+                summary.active(),
+                summary.country(),
+                summary.city(),
+                summary.role() != null ? summary.role().name() : null,
+                summary.version()
         );
     }
 
@@ -59,7 +83,19 @@ public class UserMapper {
                 user.isActive(),
                 user.getCountry(),
                 user.getCity(),
-                user.getRole()
+                user.getRole(),
+                user.getVersion()
+        );
+    }
+
+    public UserChangeDto toChangeDto(UserChange change) {
+        if (change == null) return null;
+        return new UserChangeDto(
+                change.getSeq(),
+                change.getUserId(),
+                change.getType().name(),
+                change.getOccurredAt(),
+                toResponseDto(change.getUser())
         );
     }
 
@@ -77,10 +113,29 @@ public class UserMapper {
                 requestDto.getActive() != null ? requestDto.getActive() : true,
                 requestDto.getCountry(),
                 requestDto.getCity(),
-                requestDto.getRole() != null ? requestDto.getRole() : "USER"
+                requestDto.getRole() != null ? requestDto.getRole() : "USER",
+                requestDto.getVersion()
         );
     }
 
+    public UserPatch requestToPatch(UserRequestDto requestDto) {
+        if (requestDto == null) return null;
+        return UserPatch.builder()
+                .username(requestDto.getUsername())
+                .email(requestDto.getEmail())
+                .password(requestDto.getPassword())
+                .firstName(requestDto.getFirstName())
+                .lastName(requestDto.getLastName())
+                .phoneNumber(requestDto.getPhoneNumber())
+                .address(requestDto.getAddress())
+                .active(requestDto.getActive())
+                .country(requestDto.getCountry())
+                .city(requestDto.getCity())
+                .role(requestDto.getRole())
+                .version(requestDto.getVersion())
+                .build();
+    }
+
     private Rol toEnum(String value) {
         if (value == null) return Rol.USER;
         try {
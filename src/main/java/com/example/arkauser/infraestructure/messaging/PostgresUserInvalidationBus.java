@@ -0,0 +1,223 @@
+package com.example.arkauser.infraestructure.messaging;
+
+import com.example.arkauser.application.service.TokenRevocationService;
+import com.example.arkauser.domain.ports.out.UserCachePort;
+import com.example.arkauser.domain.ports.out.UserInvalidationPort;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+// Invalida cachés de usuarios y tokens en el resto de nodos con LISTEN/NOTIFY de PostgreSQL.
+// Cada nodo escucha en una conexión que toma del DataSource configurado y retiene mientras escucha.
+// Las revocaciones se reconstruyen desde la base de datos (users.tokens_valid_after y los borrados de
+// user_outbox), que es la fuente durable; NOTIFY solo adelanta su llegada. Se cargan al crear los beans,
+// antes de que Tomcat acepte peticiones, y otra vez tras cada LISTEN: si la conexión se cae no hay forma de
+// saber qué notificaciones se perdieron, así que además se vacía la caché de usuarios.
+// La caché de tokens verificados de JwtService solo guarda firmas válidas: la revocación se comprueba en
+// cada petición contra TokenRevocationService, así que no hace falta vaciarla.
+@Slf4j
+@Component
+public class PostgresUserInvalidationBus implements UserInvalidationPort, SmartInitializingSingleton {
+
+    private static final String NOTIFY_SQL = "select pg_notify(?, ?)";
+
+    private static final String REVOCATIONS_SQL = """
+            select id as user_id, tokens_valid_after as revoked_at from users where tokens_valid_after > ?
+            union all
+            select user_id, created_at from user_outbox where event_type = 'DELETED' and created_at > ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final UserCachePort userCachePort;
+    private final TokenRevocationService tokenRevocationService;
+    private final String channel;
+    private final boolean enabled;
+    private final Duration pollTimeout;
+    private final Duration maxBackoff;
+    private final Duration socketTimeout;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread listener;
+
+    public PostgresUserInvalidationBus(JdbcTemplate jdbcTemplate,
+                                       DataSource dataSource,
+                                       UserCachePort userCachePort,
+                                       TokenRevocationService tokenRevocationService,
+                                       @Value("${user-invalidation.enabled:true}") boolean enabled,
+                                       @Value("${user-invalidation.channel:user_invalidation}") String channel,
+                                       @Value("${user-invalidation.poll-timeout:10s}") Duration pollTimeout,
+                                       @Value("${user-invalidation.max-backoff:30s}") Duration maxBackoff,
+                                       @Value("${user-invalidation.socket-timeout:5s}") Duration socketTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.userCachePort = userCachePort;
+        this.tokenRevocationService = tokenRevocationService;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.pollTimeout = pollTimeout;
+        this.maxBackoff = maxBackoff;
+        this.socketTimeout = socketTimeout;
+    }
+
+    @Override
+    public void publish(Long userId, boolean revokeTokens, Instant at) {
+        if (!enabled || userId == null) return;
+        String payload = nodeId + "|" + userId + "|" + (revokeTokens ? 1 : 0) + "|" + at.toEpochMilli();
+        try {
+            jdbcTemplate.query(NOTIFY_SQL, rs -> { }, channel, payload);
+        } catch (DataAccessException e) {
+            // La escritura ya está hecha; los demás nodos se quedan con su TTL como red de seguridad.
+            log.warn("No se pudo publicar la invalidación del usuario {}", userId, e);
+        }
+    }
+
+    // Aunque la escucha esté desactivada: un nodo reiniciado no debe aceptar tokens ya revocados.
+    @Override
+    public void afterSingletonsInstantiated() {
+        replayRevocations();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        listener = Thread.ofPlatform()
+                .name("user-invalidation-listener")
+                .daemon(true)
+                .start(this::listen);
+    }
+
+    // La conexión es del pool: la cierra el propio hilo de escucha, como mucho un poll-timeout después.
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    private void listen() {
+        long backoffMillis = 500;
+        boolean reconnect = false;
+        while (running) {
+            try {
+                connect();
+                if (reconnect) {
+                    log.info("Escucha de invalidaciones restablecida; se vacía la caché de usuarios");
+                    userCachePort.evictAll();
+                }
+                // También en la primera conexión: un nodo recién arrancado no ha oído nada todavía.
+                // Tras el LISTEN, para que lo que llegue durante la consulta entre por la notificación.
+                replayRevocations();
+                backoffMillis = 500;
+                reconnect = true;
+                receive();
+            } catch (SQLException | DataAccessException e) {
+                if (!running) return;
+                log.warn("Conexión LISTEN perdida, reintentando en {} ms", backoffMillis, e);
+            } finally {
+                closeQuietly();
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, maxBackoff.toMillis());
+        }
+    }
+
+    private void connect() throws SQLException {
+        connection = dataSource.getConnection();
+        // Sin timeout de socket, el "select 1" de comprobación puede bloquearse para siempre sobre una
+        // conexión TCP medio abierta. getNotifications aplica su propio timeout mientras espera.
+        connection.setNetworkTimeout(Runnable::run, (int) socketTimeout.toMillis());
+        connection.setAutoCommit(true);
+        try (var statement = connection.createStatement()) {
+            statement.execute("LISTEN " + quoteIdentifier(channel));
+        }
+    }
+
+    private void replayRevocations() {
+        var since = Timestamp.from(Instant.now().minus(tokenRevocationService.retention()));
+        int[] replayed = {0};
+        jdbcTemplate.query(REVOCATIONS_SQL, rs -> {
+            tokenRevocationService.revokeUser(rs.getLong("user_id"), rs.getTimestamp("revoked_at").toInstant());
+            replayed[0]++;
+        }, since, since);
+        if (replayed[0] > 0) log.info("Reconstruidas {} revocaciones de tokens desde la base de datos", replayed[0]);
+    }
+
+    // pg_notify recibe el nombre tal cual; LISTEN sin comillas lo pasaría a minúsculas y admitiría SQL.
+    static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private void receive() throws SQLException {
+        var pg = connection.unwrap(PGConnection.class);
+        int timeout = (int) pollTimeout.toMillis();
+        while (running) {
+            PGNotification[] notifications = pg.getNotifications(timeout);
+            if (notifications == null || notifications.length == 0) {
+                // Sin tráfico: una consulta trivial detecta conexiones muertas que el bloqueo no nota.
+                try (var statement = connection.createStatement()) {
+                    statement.execute("select 1");
+                }
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                handle(notification.getParameter());
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts.length != 4) {
+            log.warn("Invalidación con formato desconocido: {}", payload);
+            return;
+        }
+        if (nodeId.equals(parts[0])) return;
+        try {
+            Long userId = Long.valueOf(parts[1]);
+            userCachePort.evictUser(userId);
+            if ("1".equals(parts[2])) {
+                tokenRevocationService.revokeUser(userId, Instant.ofEpochMilli(Long.parseLong(parts[3])));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalidación con formato desconocido: {}", payload);
+        }
+    }
+
+    private void closeQuietly() {
+        Connection current = connection;
+        connection = null;
+        if (current == null) return;
+        try (current) {
+            // Vuelve al pool: sin UNLISTEN, quien la tome después seguiría recibiendo las notificaciones.
+            try (var statement = current.createStatement()) {
+                statement.execute("UNLISTEN *");
+            }
+        } catch (SQLException ignored) {
+            // La conexión ya estaba rota.
+        }
+    }
+}
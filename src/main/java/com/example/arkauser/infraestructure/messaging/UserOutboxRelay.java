@@ -0,0 +1,135 @@
+package com.example.arkauser.infraestructure.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Publica las filas de user_outbox asignándoles published_seq, el cursor de GET /api/users/changes.
+// El id de la outbox no sirve como cursor: una transacción que empezó antes puede confirmar un id menor
+// después de que un consumidor haya leído uno mayor, y ese cambio se perdería. Aquí la secuencia se
+// asigna en serie (advisory lock) y solo a filas ya confirmadas, así que el cursor nunca retrocede.
+// Tras cada lote se avisa por NOTIFY para que los consumidores que escuchan no tengan que sondear.
+@Slf4j
+@Component
+public class UserOutboxRelay {
+
+    // Clave arbitraria pero fija: un solo nodo publica a la vez.
+    private static final long RELAY_LOCK_KEY = 0x75736572_6f757462L;
+
+    private static final String LOCK_SQL = "select pg_try_advisory_xact_lock(?)";
+
+    // nextval en un UPDATE ... FROM no sigue el ORDER BY de la subconsulta: dos eventos del mismo usuario en un
+    // lote podrían salir cruzados. Se reserva el rango entero con setval y cada fila toma base + row_number()
+    // en orden de id. Bajo el advisory lock nadie más usa la secuencia entre nextval y setval.
+    private static final String PUBLISH_SQL = """
+            with locked as (
+                select id from user_outbox where published_seq is null order by id limit ? for update
+            ), numbered as (
+                select id, row_number() over (order by id) as n, count(*) over () as total from locked
+            ), reserved as (
+                select setval('user_outbox_published_seq', nextval('user_outbox_published_seq') + max(total) - 1)
+                       - max(total) as base
+                from numbered
+                having count(*) > 0
+            )
+            update user_outbox o
+            set published_seq = reserved.base + numbered.n, published_at = now()
+            from numbered, reserved
+            where o.id = numbered.id
+            returning o.published_seq""";
+
+    private static final String NOTIFY_SQL = "select pg_notify(?, ?)";
+
+    // El borrado y la marca de agua van en la misma sentencia: el feed nunca ve eventos purgados sin que la
+    // marca lo refleje, y responde 410 a los cursores que han quedado por debajo.
+    private static final String PURGE_SQL = """
+            with purged as (
+                delete from user_outbox where published_seq is not null and published_at < ?
+                returning published_seq
+            ), watermark as (
+                update user_outbox_watermark set purged_seq = greatest(purged_seq, (select max(published_seq) from purged))
+                where exists (select 1 from purged)
+            )
+            select count(*) from purged""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+    private final boolean enabled;
+    private final int batchSize;
+    private final String channel;
+    private final Duration retention;
+
+    public UserOutboxRelay(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${user-outbox.enabled:true}") boolean enabled,
+                           @Value("${user-outbox.batch-size:500}") int batchSize,
+                           @Value("${user-outbox.channel:user_changes}") String channel,
+                           @Value("${user-outbox.retention:7d}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.published = Counter.builder("user.outbox.published")
+                .description("Eventos de user_outbox publicados en el change feed")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.channel = channel;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${user-outbox.relay-interval:500ms}")
+    public void relay() {
+        if (!enabled) return;
+        try {
+            // Se vacía la cola mientras los lotes salgan llenos; cada lote en su propia transacción.
+            int count;
+            do {
+                count = publishBatch();
+            } while (count == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo publicar la outbox de usuarios; se reintenta en el siguiente ciclo", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${user-outbox.purge-interval:1h}")
+    public void purge() {
+        if (!enabled) return;
+        try {
+            Integer deleted = jdbcTemplate.queryForObject(PURGE_SQL, Integer.class, Timestamp.from(Instant.now().minus(retention)));
+            if (deleted != null && deleted > 0) log.info("Eliminados {} eventos antiguos de user_outbox", deleted);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo purgar user_outbox", e);
+        }
+    }
+
+    private int publishBatch() {
+        Integer count = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(LOCK_SQL, Boolean.class, RELAY_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) return 0;
+
+            List<Long> seqs = jdbcTemplate.queryForList(PUBLISH_SQL, Long.class, batchSize);
+            if (seqs.isEmpty()) return 0;
+
+            long last = seqs.stream().mapToLong(Long::longValue).max().orElseThrow();
+            // NOTIFY se entrega al confirmar la transacción, junto con las secuencias asignadas.
+            jdbcTemplate.query(NOTIFY_SQL, rs -> { }, channel, Long.toString(last));
+            return seqs.size();
+        });
+        int relayed = count != null ? count : 0;
+        published.increment(relayed);
+        return relayed;
+    }
+}
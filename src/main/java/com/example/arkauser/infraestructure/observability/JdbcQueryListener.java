@@ -0,0 +1,44 @@
+package com.example.arkauser.infraestructure.observability;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+// Sustituye a show-sql: acumula consultas y tiempo por petición y registra solo una muestra de las lentas.
+@Slf4j
+public class JdbcQueryListener implements QueryExecutionListener {
+
+    private static final int MAX_LOGGED_SQL_LENGTH = 1000;
+
+    private final long slowQueryMillis;
+    private final double sampleRate;
+
+    public JdbcQueryListener(Duration slowQueryThreshold, double sampleRate) {
+        this.slowQueryMillis = slowQueryThreshold.toMillis();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        var stats = RequestJdbcStats.current();
+        if (stats != null) stats.record(elapsed);
+
+        if (elapsed >= slowQueryMillis && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+            if (sql.length() > MAX_LOGGED_SQL_LENGTH) sql = sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+            log.warn("Consulta lenta ({} ms, batch={}, éxito={}): {}",
+                    elapsed, execInfo.getBatchSize(), execInfo.isSuccess(), sql);
+        }
+    }
+}
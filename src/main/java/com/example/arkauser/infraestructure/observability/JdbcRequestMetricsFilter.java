@@ -0,0 +1,61 @@
+package com.example.arkauser.infraestructure.observability;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Publica consultas y tiempo JDBC por endpoint (tag uri = patrón del mapping) y avisa de posibles N+1.
+@Slf4j
+public class JdbcRequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public JdbcRequestMetricsFilter(MeterRegistry meterRegistry, int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var stats = RequestJdbcStats.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestJdbcStats.clear();
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestJdbcStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("http.server.requests.jdbc.queries")
+                .description("Consultas JDBC ejecutadas por petición")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(stats.queries());
+        Timer.builder("http.server.requests.jdbc.time")
+                .description("Tiempo JDBC acumulado por petición")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(stats.elapsedMillis(), TimeUnit.MILLISECONDS);
+
+        if (stats.queries() > nPlusOneThreshold) {
+            log.warn("Posible N+1: {} consultas ({} ms) en {} {}", stats.queries(), stats.elapsedMillis(), method, uri);
+        }
+    }
+}
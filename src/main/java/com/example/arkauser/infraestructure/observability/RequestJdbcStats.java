@@ -0,0 +1,37 @@
+package com.example.arkauser.infraestructure.observability;
+
+// Contadores JDBC de la petición en curso; solo existen entre start() y clear() en el hilo de la petición.
+final class RequestJdbcStats {
+
+    private static final ThreadLocal<RequestJdbcStats> CURRENT = new ThreadLocal<>();
+
+    private int queries;
+    private long elapsedMillis;
+
+    static RequestJdbcStats start() {
+        var stats = new RequestJdbcStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static RequestJdbcStats current() {
+        return CURRENT.get();
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    void record(long millis) {
+        queries++;
+        elapsedMillis += millis;
+    }
+
+    int queries() {
+        return queries;
+    }
+
+    long elapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.arkauser.infraestructure.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Slf4j
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    private static final String CALIBRATION_SAMPLE = "arka-calibracion-bcrypt";
+
+    private static final String SELECT_COST_SQL = "select value::int from security_settings where name = 'bcrypt_cost'";
+    private static final String INSERT_COST_SQL =
+            "insert into security_settings (name, value) values ('bcrypt_cost', ?) on conflict do nothing";
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    // Rehash si el coste almacenado está por debajo del objetivo, o al menos 2 puntos por encima (4x más lento).
+    // Un punto de más no compensa la escritura, el evento de outbox y la invalidación que provoca el rehash.
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) return false;
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) return false;
+        int stored = Integer.parseInt(matcher.group(1));
+        return stored < strength || stored >= strength + 2;
+    }
+
+    // Un solo coste para todo el clúster: el primer nodo lo calibra y lo guarda, los demás lo leen.
+    // Si dos nodos arrancan a la vez, ON CONFLICT deja el primero y ambos releen el mismo valor.
+    public static int clusterCost(JdbcTemplate jdbcTemplate, IntSupplier calibration) {
+        List<Integer> stored = jdbcTemplate.queryForList(SELECT_COST_SQL, Integer.class);
+        if (!stored.isEmpty()) return stored.get(0);
+        jdbcTemplate.update(INSERT_COST_SQL, Integer.toString(calibration.getAsInt()));
+        int cost = jdbcTemplate.queryForObject(SELECT_COST_SQL, Integer.class);
+        log.info("Coste BCrypt del clúster: {}", cost);
+        return cost;
+    }
+
+    public static int calibrate(Duration budget, int minCost, int maxCost) {
+        new BCryptPasswordEncoder(4).encode(CALIBRATION_SAMPLE);
+
+        int chosen = minCost;
+        for (int cost = minCost; cost <= maxCost; cost++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(cost).encode(CALIBRATION_SAMPLE);
+            long elapsed = System.nanoTime() - start;
+
+            if (cost > minCost && elapsed > budget.toNanos()) break;
+            chosen = cost;
+            // Cada punto de coste duplica el tiempo; si el siguiente no cabe no hace falta medirlo.
+            if (elapsed * 2 > budget.toNanos()) break;
+        }
+        log.info("Coste BCrypt calibrado en {} para un presupuesto de {} ms", chosen, budget.toMillis());
+        return chosen;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.arkauser.infraestructure.security;
+
+import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.ports.out.UserCachePort;
+import com.example.arkauser.domain.ports.out.UserRepositoryPort;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingUserDetailsService implements UserDetailsService, UserCachePort {
+
+    private final UserRepositoryPort userRepositoryPort;
+    private final Cache<String, CachedUser> cache;
+    // id -> identificadores cacheados de ese usuario, para desalojar sin recorrer la caché.
+    private final Map<Long, Set<String>> keysById = new ConcurrentHashMap<>();
+    // Se incrementa antes de cada desalojo: una carga que empezó antes no puede dejar datos viejos.
+    private final AtomicLong evictionGeneration = new AtomicLong();
+    private final Counter invalidations;
+
+    // La clave es el identificador tal como llega (email o username); el id permite desalojar ambas.
+    private record CachedUser(Long id, UserDetails details) {}
+
+    public CachingUserDetailsService(UserRepositoryPort userRepositoryPort,
+                                     long maxSize,
+                                     Duration ttl,
+                                     MeterRegistry meterRegistry) {
+        this.userRepositoryPort = userRepositoryPort;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                // Síncrono dentro del cómputo de la entrada: no compite con un put de la misma clave.
+                .evictionListener((String key, CachedUser value, RemovalCause cause) -> unindex(key, value))
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("user.details.cache.invalidations")
+                .description("Entradas desalojadas explícitamente por cambios de usuario")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String identifier) throws UsernameNotFoundException {
+        // Sin cache.get(key, loader): el loader correría dentro del lock del ConcurrentHashMap
+        // y una consulta JDBC ahí fija el carrier thread cuando se usan hilos virtuales.
+        CachedUser cached = cache.getIfPresent(identifier);
+        if (cached == null) {
+            long generation = evictionGeneration.get();
+            cached = load(identifier);
+            if (cached != null) {
+                cache.put(identifier, cached);
+                // compute y no computeIfAbsent().add(): así no compite con unindex vaciando el mismo conjunto.
+                keysById.compute(cached.id(), (id, keys) -> {
+                    Set<String> updated = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                    updated.add(identifier);
+                    return updated;
+                });
+                // Si hubo un desalojo durante la carga, lo leído puede ser anterior a él.
+                if (evictionGeneration.get() != generation) cache.asMap().remove(identifier, cached);
+            }
+        }
+        if (cached == null) {
+            throw new UsernameNotFoundException("User not found with username or email: " + identifier);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(cached.details()).build();
+    }
+
+    @Override
+    public void evictUser(Long id) {
+        if (id == null) return;
+        evictionGeneration.incrementAndGet();
+        Set<String> keys = keysById.remove(id);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+            invalidations.increment();
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        evictionGeneration.incrementAndGet();
+        cache.invalidateAll();
+        keysById.clear();
+        invalidations.increment();
+    }
+
+    private void unindex(String key, CachedUser value) {
+        if (key == null || value == null) return;
+        keysById.computeIfPresent(value.id(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private CachedUser load(String identifier) {
+        var byEmail = userRepositoryPort.getUserByEmail(identifier);
+        if (byEmail.isPresent()) {
+            var u = byEmail.get();
+            return new CachedUser(u.getId(), toUserDetails(u.getEmail(), u));
+        }
+        var byUsername = userRepositoryPort.getUserByUsername(identifier);
+        return byUsername
+                .map(u -> new CachedUser(u.getId(), toUserDetails(u.getUsername(), u)))
+                .orElse(null);
+    }
+
+    private UserDetails toUserDetails(String name, User u) {
+        return new org.springframework.security.core.userdetails.User(
+                name, u.getPassword(), u.isActive(), true, true, true,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + u.getRole()))
+        );
+    }
+}
@@ -1,53 +1,43 @@
 package com.example.arkauser.infraestructure.security;
 
 import com.example.arkauser.application.service.JwtService;
+import com.example.arkauser.application.service.TokenRevocationService;
+import com.example.arkauser.application.service.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
-    private final AntPathMatcher matcher = new AntPathMatcher();
-
-    private static final List<String> PUBLIC_PATHS = List.of(
-            "/error",
-            "/auth/**",
-            "/users/login",
-            "/users/create",
-            "/api/users/login",
-            "/api/users/create",
-            "/v3/api-docs/**",
-            "/swagger-ui/**",
-            "/swagger-ui.html",
-            "/actuator/**"
-    );
-
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    private final TokenRevocationService tokenRevocationService;
+    private final boolean statelessPrincipal;
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserDetailsService userDetailsService,
+                                   TokenRevocationService tokenRevocationService,
+                                   boolean statelessPrincipal) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())) return true;
-        String path = request.getServletPath();
-        for (String p : PUBLIC_PATHS) {
-            if (matcher.match(p, path)) return true;
-        }
-        return false;
+        return PublicPaths.matches(request.getServletPath());
     }
 
     @Override
@@ -67,39 +57,60 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = auth.substring(7).trim();
-        if (token.isEmpty() || !jwtService.isValidToken(token)) {
+        var verified = jwtService.verify(token).orElse(null);
+        if (verified == null || tokenRevocationService.isRevoked(verified)) {
             chain.doFilter(request, response);
             return;
         }
 
-        String username = jwtService.getSubject(token);
+        String username = verified.subject();
         if (username == null || username.isBlank()) {
             chain.doFilter(request, response);
             return;
         }
 
+        if (statelessPrincipal) {
+            authenticate(request, principalFromClaims(verified), token);
+            chain.doFilter(request, response);
+            return;
+        }
+
         try {
             var userDetails = userDetailsService.loadUserByUsername(username);
-            var authorities = userDetails.getAuthorities();
-            Long userId = jwtService.getUserId(token);
             var principal = UserPrincipal.builder()
-                    .id(userId)
+                    .id(verified.userId())
                     .username(userDetails.getUsername())
                     .password("")
-                    .authorities(authorities)
+                    .authorities(userDetails.getAuthorities())
                     .enabled(userDetails.isEnabled())
                     .build();
-
-            var authentication = new UsernamePasswordAuthenticationToken(
-                    principal,
-                    token,
-                    authorities
-            );
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            authenticate(request, principal, token);
         } catch (UsernameNotFoundException ex) {
         }
 
         chain.doFilter(request, response);
     }
+
+    private UserPrincipal principalFromClaims(VerifiedToken verified) {
+        var authorities = verified.roles().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+        return UserPrincipal.builder()
+                .id(verified.userId())
+                .username(verified.subject())
+                .password("")
+                .authorities(authorities)
+                .enabled(true)
+                .build();
+    }
+
+    private void authenticate(HttpServletRequest request, UserPrincipal principal, String token) {
+        var authentication = new UsernamePasswordAuthenticationToken(
+                principal,
+                token,
+                principal.getAuthorities()
+        );
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
 }
@@ -0,0 +1,263 @@
+package com.example.arkauser.infraestructure.security;
+
+import com.example.arkauser.application.service.JwtKeyProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.crypto.SecretKey;
+
+// Firma ES256 con la clave activa y verificación por "kid" con un JwtParser inmutable construido una vez.
+// Las claves públicas EC se publican en el JWKS para que otros servicios verifiquen sin llamarnos.
+// Las claves HMAC (security.jwt.secret / security.jwt.keys) solo se cargan con security.jwt.legacy-hmac
+// activado y hasta su accept-until: un secreto compartido no puede seguir firmando tokens indefinidamente.
+// Rotación sin caída: se añade la clave nueva a signing-keys (entra en el JWKS), se activa con signing-kid
+// cuando los consumidores ya la han cacheado y la antigua se retira tras la vida de un token.
+// Un EnvironmentChangeEvent recarga el anillo: POST /actuator/refresh (ADMIN) tras editar el fichero de
+// SECURITY_JWT_KEYS_FILE, que application.yml importa.
+@Slf4j
+@Component
+public class JwtKeyRing implements JwtKeyProvider {
+
+    static final String DEFAULT_KID = "default";
+    static final String DEV_PROFILE = "dev";
+
+    public record HmacKeyProperties(String kid, String secret) {
+    }
+
+    public record SigningKeyProperties(String kid, String privateKey, String publicKey) {
+    }
+
+    private record KeySet(String activeKid, PrivateKey activeKey, Map<String, Key> verificationKeys,
+                          Map<String, Object> jwks, Instant hmacAcceptUntil) {
+    }
+
+    private final Environment environment;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final JwtParser parser;
+    private KeyPair ephemeralKeyPair;
+    private String ephemeralKid;
+    private volatile KeySet keySet;
+
+    public JwtKeyRing(Environment environment) {
+        this.environment = environment;
+        this.keySet = load();
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolve(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public String activeKid() {
+        return keySet.activeKid();
+    }
+
+    @Override
+    public PrivateKey activeKey() {
+        return keySet.activeKey();
+    }
+
+    @Override
+    public JwtParser parser() {
+        return parser;
+    }
+
+    public Map<String, Object> jwks() {
+        return keySet.jwks();
+    }
+
+    @Override
+    public void onChange(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().noneMatch(k -> k.startsWith("security.jwt."))) return;
+        reload();
+    }
+
+    public void reload() {
+        try {
+            keySet = load();
+        } catch (RuntimeException e) {
+            log.error("Configuración de claves JWT inválida; se mantienen las claves actuales", e);
+            return;
+        }
+        log.info("Claves JWT recargadas: firma={}, verificación={}", keySet.activeKid(), keySet.verificationKeys().keySet());
+        changeListeners.forEach(Runnable::run);
+    }
+
+    // Al pasar accept-until se recarga sin las claves HMAC; la recarga vacía también la caché de JwtService.
+    @Scheduled(fixedDelay = 60_000)
+    public void expireLegacyHmacKeys() {
+        Instant acceptUntil = keySet.hmacAcceptUntil();
+        if (acceptUntil != null && !Instant.now().isBefore(acceptUntil)) reload();
+    }
+
+    private Key resolve(String kid) {
+        KeySet current = keySet;
+        // Tokens HMAC emitidos antes de introducir "kid": se verifican con la clave por defecto.
+        Key key = current.verificationKeys().get(kid != null ? kid : DEFAULT_KID);
+        if (key == null) throw new UnsupportedJwtException("Clave de firma desconocida: " + kid);
+        if (key instanceof SecretKey && !Instant.now().isBefore(current.hmacAcceptUntil())) {
+            throw new UnsupportedJwtException("Los tokens HMAC ya no se aceptan");
+        }
+        return key;
+    }
+
+    private KeySet load() {
+        var binder = Binder.get(environment);
+        var verificationKeys = new LinkedHashMap<String, Key>();
+        var signingKeys = new LinkedHashMap<String, PrivateKey>();
+        var jwk = new ArrayList<Map<String, Object>>();
+
+        Instant hmacAcceptUntil = null;
+        if (binder.bind("security.jwt.legacy-hmac.enabled", Boolean.class).orElse(false)) {
+            String until = binder.bind("security.jwt.legacy-hmac.accept-until", String.class).orElse("").trim();
+            if (until.isEmpty()) {
+                throw new IllegalStateException("security.jwt.legacy-hmac.accept-until es obligatorio al activar legacy-hmac");
+            }
+            hmacAcceptUntil = Instant.parse(until);
+            if (Instant.now().isBefore(hmacAcceptUntil)) {
+                binder.bind("security.jwt.secret", String.class)
+                        .ifBound(secret -> verificationKeys.put(DEFAULT_KID, hmacKey(secret)));
+                binder.bind("security.jwt.keys", Bindable.listOf(HmacKeyProperties.class))
+                        .orElse(List.of())
+                        .forEach(k -> verificationKeys.put(requireKid(k.kid()), hmacKey(k.secret())));
+                if (verificationKeys.isEmpty()) {
+                    throw new IllegalStateException("legacy-hmac activado sin security.jwt.secret ni security.jwt.keys");
+                }
+            } else {
+                log.info("security.jwt.legacy-hmac.accept-until ({}) ya ha pasado: no se aceptan tokens HMAC", hmacAcceptUntil);
+                hmacAcceptUntil = null;
+            }
+        } else if (binder.bind("security.jwt.secret", String.class).isBound()) {
+            log.warn("security.jwt.secret se ignora: la verificación HMAC está desactivada (security.jwt.legacy-hmac)");
+        }
+
+        for (var k : binder.bind("security.jwt.signing-keys", Bindable.listOf(SigningKeyProperties.class)).orElse(List.of())) {
+            String kid = requireKid(k.kid());
+            var publicKey = (ECPublicKey) decode(k.publicKey(), false);
+            signingKeys.put(kid, (PrivateKey) decode(k.privateKey(), true));
+            verificationKeys.put(kid, publicKey);
+            jwk.add(toJwk(kid, publicKey));
+        }
+
+        if (signingKeys.isEmpty()) {
+            // Con varias instancias una clave por nodo rompe la verificación cruzada y el JWKS: solo en dev.
+            if (!environment.acceptsProfiles(Profiles.of(DEV_PROFILE))) {
+                throw new IllegalStateException("Faltan security.jwt.signing-keys; la clave efímera solo se permite con el perfil " + DEV_PROFILE);
+            }
+            KeyPair pair = ephemeralKeyPair();
+            signingKeys.put(ephemeralKid, pair.getPrivate());
+            verificationKeys.put(ephemeralKid, pair.getPublic());
+            jwk.add(toJwk(ephemeralKid, (ECPublicKey) pair.getPublic()));
+        }
+
+        String activeKid = binder.bind("security.jwt.signing-kid", String.class).orElse("").trim();
+        if (activeKid.isEmpty()) activeKid = signingKeys.keySet().iterator().next();
+        PrivateKey activeKey = signingKeys.get(activeKid);
+        if (activeKey == null) throw new IllegalStateException("security.jwt.signing-kid no corresponde a ninguna clave: " + activeKid);
+
+        return new KeySet(activeKid, activeKey, Map.copyOf(verificationKeys), Map.of("keys", List.copyOf(jwk)),
+                hmacAcceptUntil);
+    }
+
+    // Se genera una sola vez por proceso para que una recarga no invalide los tokens ya emitidos.
+    private synchronized KeyPair ephemeralKeyPair() {
+        if (ephemeralKeyPair == null) {
+            ephemeralKeyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+            ephemeralKid = "ephemeral-" + UUID.randomUUID();
+            log.warn("Perfil {} sin security.jwt.signing-keys: se firma con una clave EC efímera ({}). "
+                    + "Los tokens dejan de valer al reiniciar y cada nodo publica una clave distinta.", DEV_PROFILE, ephemeralKid);
+        }
+        return ephemeralKeyPair;
+    }
+
+    private static String requireKid(String kid) {
+        if (kid == null || kid.isBlank()) throw new IllegalStateException("Cada clave JWT necesita un kid");
+        return kid;
+    }
+
+    private static Key hmacKey(String secret) {
+        if (secret == null) throw new IllegalStateException("Clave JWT sin secreto");
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decode(String pem, boolean privateKey) {
+        if (pem == null || pem.isBlank()) throw new IllegalStateException("Clave de firma JWT sin PEM");
+        byte[] der = Base64.getMimeDecoder().decode(pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", ""));
+        try {
+            var factory = KeyFactory.getInstance("EC");
+            return privateKey
+                    ? factory.generatePrivate(new PKCS8EncodedKeySpec(der))
+                    : factory.generatePublic(new X509EncodedKeySpec(der));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Clave EC inválida (se espera P-256 en PEM PKCS#8/X.509)", e);
+        }
+    }
+
+    private static Map<String, Object> toJwk(String kid, ECPublicKey key) {
+        if (key.getParams().getCurve().getField().getFieldSize() != 256) {
+            throw new IllegalStateException("La clave " + kid + " no es P-256, necesaria para ES256");
+        }
+        var jwk = new LinkedHashMap<String, Object>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", kid);
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    // RFC 7518: coordenada sin signo, rellenada a 32 bytes, en base64url sin padding.
+    private static String coordinate(BigInteger value) {
+        byte[] raw = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.arkauser.infraestructure.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Límite de intentos de login por identificador y por IP, comprobado antes de tocar la base de datos
+// o BCrypt: un ataque de credential stuffing no puede convertir cada petición en ~100 ms de CPU.
+@Component
+public class LoginThrottle {
+
+    private final TokenBucketSketch byIdentifier;
+    private final TokenBucketSketch byIp;
+    private final Counter identifierRejections;
+    private final Counter ipRejections;
+    private final Duration retryAfter;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${security.login-throttle.width:65536}") int width,
+                         @Value("${security.login-throttle.identifier.capacity:5}") int identifierCapacity,
+                         @Value("${security.login-throttle.identifier.refill-per-minute:5}") int identifierRefill,
+                         @Value("${security.login-throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${security.login-throttle.ip.refill-per-minute:30}") int ipRefill) {
+        this.byIdentifier = new TokenBucketSketch(width, identifierCapacity, identifierRefill);
+        this.byIp = new TokenBucketSketch(width, ipCapacity, ipRefill);
+        this.identifierRejections = Counter.builder("login.throttle.rejections")
+                .tag("scope", "identifier")
+                .register(meterRegistry);
+        this.ipRejections = Counter.builder("login.throttle.rejections")
+                .tag("scope", "ip")
+                .register(meterRegistry);
+        this.retryAfter = Duration.ofSeconds((long) Math.ceil(60d / Math.max(1, Math.min(identifierRefill, ipRefill))));
+    }
+
+    public boolean tryAcquire(String identifier, String clientIp) {
+        if (clientIp != null && !byIp.tryAcquire(clientIp)) {
+            ipRejections.increment();
+            return false;
+        }
+        if (identifier != null && !byIdentifier.tryAcquire(identifier)) {
+            identifierRejections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.arkauser.infraestructure.security;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.List;
+import java.util.Set;
+
+// Única lista de rutas públicas: la usan la cadena de seguridad y JwtAuthenticationFilter.
+// Se compara con Set.contains y startsWith sobre el servletPath, sin reservar memoria por petición.
+final class PublicPaths {
+
+    private static final Set<String> EXACT = Set.of(
+            "/error",
+            "/swagger-ui.html",
+            "/api/users/login",
+            "/api/users/create",
+            "/.well-known/jwks.json",
+            "/actuator/info"
+    );
+
+    // Equivalen a "/prefijo/**": coinciden con el prefijo exacto y con todo lo que cuelga de él.
+    // Del actuator solo health (y sus grupos, p. ej. liveness/readiness) es público; el resto exige ADMIN.
+    private static final List<String> PREFIXES = List.of(
+            "/auth",
+            "/v3/api-docs",
+            "/swagger-ui",
+            "/actuator/health"
+    );
+
+    private static final RequestMatcher REQUEST_MATCHER = request -> matches(request.getServletPath());
+
+    private PublicPaths() {
+    }
+
+    static boolean matches(String path) {
+        if (path == null) return false;
+        if (EXACT.contains(path)) return true;
+        for (int i = 0; i < PREFIXES.size(); i++) {
+            String prefix = PREFIXES.get(i);
+            if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static RequestMatcher requestMatcher() {
+        return REQUEST_MATCHER;
+    }
+}
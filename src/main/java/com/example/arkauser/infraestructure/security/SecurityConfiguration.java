@@ -1,19 +1,22 @@
 package com.example.arkauser.infraestructure.security;
 
 import com.example.arkauser.application.service.JwtService;
+import com.example.arkauser.application.service.TokenRevocationService;
+import com.example.arkauser.domain.ports.out.UserRepositoryPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -21,39 +24,28 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
-import java.util.Collections;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfiguration {
 
     @Bean
-    public UserDetailsService userDetailsService(com.example.arkauser.domain.ports.out.UserRepositoryPort userRepositoryPort) {
-        return identifier -> {
-            var byEmail = userRepositoryPort.getUserByEmail(identifier);
-            if (byEmail.isPresent()) {
-                var u = byEmail.get();
-                return new org.springframework.security.core.userdetails.User(
-                        u.getEmail(), u.getPassword(), u.isActive(), true, true, true,
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + u.getRole()))
-                );
-            }
-            var byUsername = userRepositoryPort.getUserByUsername(identifier);
-            if (byUsername.isPresent()) {
-                var u = byUsername.get();
-                return new org.springframework.security.core.userdetails.User(
-                        u.getUsername(), u.getPassword(), u.isActive(), true, true, true,
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + u.getRole()))
-                );
-            }
-            throw new UsernameNotFoundException("User not found with username or email: " + identifier);
-        };
+    public CachingUserDetailsService userDetailsService(UserRepositoryPort userRepositoryPort,
+                                                        MeterRegistry meterRegistry,
+                                                        @Value("${security.user-cache.max-size:10000}") long maxSize,
+                                                        @Value("${security.user-cache.ttl:5m}") Duration ttl) {
+        return new CachingUserDetailsService(userRepositoryPort, maxSize, ttl, meterRegistry);
     }
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(UserDetailsService uds, JwtService jwtService) {
-        return new JwtAuthenticationFilter(jwtService, uds);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(UserDetailsService uds,
+                                                           JwtService jwtService,
+                                                           TokenRevocationService tokenRevocationService,
+                                                           @Value("${security.jwt.stateless-principal:false}") boolean statelessPrincipal) {
+        return new JwtAuthenticationFilter(jwtService, uds, tokenRevocationService, statelessPrincipal);
     }
 
     @Bean
@@ -68,11 +60,9 @@ public class SecurityConfiguration {
                 )
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                        .requestMatchers("/error").permitAll()
-                        .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
-                        .requestMatchers("/actuator/**").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/api/users/login", "/api/users/create").permitAll()
-                        .requestMatchers("/auth/**").permitAll()
+                        .requestMatchers(PublicPaths.requestMatcher()).permitAll()
+                        // metrics expone tiempos por endpoint y el estado del pool de conexiones.
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/users/**").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -96,8 +86,20 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(JdbcTemplate jdbcTemplate,
+                                    @Value("${security.password.cost:0}") int fixedCost,
+                                    @Value("${security.password.hash-budget:100ms}") Duration hashBudget,
+                                    @Value("${security.password.min-cost:10}") int minCost,
+                                    @Value("${security.password.max-cost:14}") int maxCost) {
+        int cost = fixedCost > 0
+                ? fixedCost
+                : AdaptiveBCryptPasswordEncoder.clusterCost(jdbcTemplate,
+                        () -> AdaptiveBCryptPasswordEncoder.calibrate(hashBudget, minCost, maxCost));
+        var bcrypt = new AdaptiveBCryptPasswordEncoder(cost);
+        var encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        // Hashes antiguos sin prefijo {bcrypt}: se validan igual y se reescriben en el siguiente login.
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
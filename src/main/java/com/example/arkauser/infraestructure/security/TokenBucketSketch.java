@@ -0,0 +1,82 @@
+package com.example.arkauser.infraestructure.security;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Token buckets en un sketch de dos filas (como un count-min): memoria fija sea cual sea el número de
+// claves y sin locks, cada celda se actualiza con CAS. Una clave pasa solo si sus dos celdas tienen saldo,
+// así que una colisión puede frenar antes de tiempo pero nunca deja pasar de más. Las celdas inactivas
+// se rellenan solas, que es toda la "expiración" que hace falta.
+final class TokenBucketSketch {
+
+    private static final long MILLI_TOKENS = 1000;
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    private final AtomicLongArray cells;
+    private final int width;
+    private final long capacity;
+    private final double refillPerMilli;
+    private final long seed1;
+    private final long seed2;
+    private final LongSupplier clock;
+    private final long epoch;
+
+    TokenBucketSketch(int width, int capacity, int refillPerMinute) {
+        this(width, capacity, refillPerMinute, System::currentTimeMillis);
+    }
+
+    TokenBucketSketch(int width, int capacity, int refillPerMinute, LongSupplier clock) {
+        this.clock = clock;
+        // Un milisegundo antes del arranque: el instante relativo nunca es 0 y una celda vaciada
+        // no puede confundirse con una sin usar.
+        this.epoch = clock.getAsLong() - 1;
+        this.width = Integer.highestOneBit(Math.max(width, 64));
+        this.cells = new AtomicLongArray(this.width * 2);
+        this.capacity = Math.min(capacity * MILLI_TOKENS, TOKEN_MASK);
+        this.refillPerMilli = refillPerMinute * MILLI_TOKENS / 60_000d;
+        this.seed1 = ThreadLocalRandom.current().nextLong();
+        this.seed2 = ThreadLocalRandom.current().nextLong();
+    }
+
+    boolean tryAcquire(String key) {
+        long now = clock.getAsLong() - epoch;
+        int i1 = (int) (hash(key, seed1) & (width - 1));
+        int i2 = width + (int) (hash(key, seed2) & (width - 1));
+        // Sin cortocircuito: el intento se descuenta en ambas filas aunque la primera ya rechace.
+        return tryConsume(i1, now) & tryConsume(i2, now);
+    }
+
+    private boolean tryConsume(int index, long now) {
+        while (true) {
+            long cell = cells.get(index);
+            // Celda a cero = nunca usada: empieza llena.
+            long tokens = cell == 0 ? capacity : cell & TOKEN_MASK;
+            long last = cell == 0 ? now : cell >>> TOKEN_BITS;
+            // Un reloj que retrocede no puede restar saldo ni romper el empaquetado de la celda.
+            long gained = (long) (Math.max(0, now - last) * refillPerMilli);
+            long refilled = Math.min(capacity, tokens + gained);
+            boolean allowed = refilled >= MILLI_TOKENS;
+            long remaining = allowed ? refilled - MILLI_TOKENS : refilled;
+            // Si aún no se ha ganado ni un milli-token se conserva el instante para no perder la fracción.
+            long stamp = gained == 0 && tokens < capacity || now < last ? last : now;
+            long updated = (stamp << TOKEN_BITS) | remaining;
+            if (updated == 0) updated = 1L << TOKEN_BITS;
+            if (cells.compareAndSet(index, cell, updated)) return allowed;
+        }
+    }
+
+    private static long hash(String key, long seed) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,18 @@
+-- Esquema que generaba Hibernate con ddl-auto: update. En bases existentes Flyway hace baseline
+-- en la versión 1 y esta migración no se ejecuta.
+create table if not exists users (
+    id           bigint generated by default as identity primary key,
+    username     varchar(255) not null,
+    email        varchar(255) not null,
+    password     varchar(255) not null,
+    first_name   varchar(255),
+    last_name    varchar(255),
+    phone_number varchar(255),
+    address      varchar(255),
+    active       boolean      not null,
+    country      varchar(255),
+    city         varchar(255),
+    role         varchar(20)  not null,
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+);
@@ -0,0 +1 @@
+alter table users add column if not exists version bigint default 0 not null;
@@ -0,0 +1,8 @@
+-- Listados por rol (y rol + estado): la columna role va primero para servir ambas consultas.
+create index if not exists idx_users_role_active on users (role, active);
+
+-- Los usuarios inactivos son pocos; un índice parcial evita recorrer la tabla para listarlos.
+create index if not exists idx_users_inactive on users (id) where not active;
+
+-- Búsqueda por email sin distinguir mayúsculas: las consultas usan lower(email) = lower(:email).
+create index if not exists idx_users_email_lower on users (lower(email));
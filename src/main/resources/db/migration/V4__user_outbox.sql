@@ -0,0 +1,19 @@
+-- Marca de última modificación para sincronizaciones por fecha.
+alter table users add column if not exists updated_at timestamptz default now() not null;
+
+-- Outbox de cambios: se escribe en la misma sentencia que la mutación del usuario.
+-- published_seq lo asigna el relay en serie (bajo un advisory lock) y es el cursor del change feed:
+-- a diferencia de id, nunca aparece un valor menor después de haber leído uno mayor.
+create table if not exists user_outbox (
+    id            bigint generated always as identity primary key,
+    user_id       bigint       not null,
+    event_type    varchar(20)  not null,
+    created_at    timestamptz  default now() not null,
+    published_seq bigint,
+    published_at  timestamptz
+);
+
+create sequence if not exists user_outbox_published_seq;
+
+create index if not exists idx_user_outbox_pending on user_outbox (id) where published_seq is null;
+create unique index if not exists idx_user_outbox_published_seq on user_outbox (published_seq) where published_seq is not null;
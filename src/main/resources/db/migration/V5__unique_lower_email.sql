@@ -0,0 +1,19 @@
+-- El login y la búsqueda comparan lower(email); la unicidad tiene que ser la misma o dos direcciones que
+-- solo difieren en mayúsculas convivirían y la búsqueda dejaría de devolver un único usuario.
+-- Si ya existen colisiones no se pueden fusionar usuarios automáticamente: la migración se detiene.
+do $$
+declare
+    duplicated text;
+begin
+    select string_agg(email, ', ') into duplicated
+    from (select lower(trim(email)) as email from users group by lower(trim(email)) having count(*) > 1) d;
+    if duplicated is not null then
+        raise exception 'Emails repetidos sin distinguir mayúsculas; resuélvelos antes de migrar: %', duplicated;
+    end if;
+end $$;
+
+-- La aplicación ya guarda el email en minúsculas; se normalizan las filas anteriores.
+update users set email = lower(trim(email)) where email <> lower(trim(email));
+
+drop index if exists idx_users_email_lower;
+create unique index idx_users_email_lower on users (lower(email));
@@ -0,0 +1,6 @@
+-- Corte de revocación persistido con el usuario: los tokens emitidos antes dejan de valer.
+-- Las notificaciones LISTEN/NOTIFY se pierden si un nodo está desconectado; al (re)conectar cada nodo
+-- reconstruye sus revocaciones en memoria desde esta columna.
+alter table users add column if not exists tokens_valid_after timestamptz;
+
+create index if not exists idx_users_tokens_valid_after on users (tokens_valid_after) where tokens_valid_after is not null;
@@ -0,0 +1,8 @@
+-- Mayor published_seq eliminado por la purga de user_outbox. Un cursor del change feed por debajo de
+-- este valor ha perdido eventos y el consumidor tiene que resincronizar desde /api/users/export.
+create table if not exists user_outbox_watermark (
+    id         boolean primary key default true check (id),
+    purged_seq bigint  not null default 0
+);
+
+insert into user_outbox_watermark (id) values (true) on conflict do nothing;
@@ -0,0 +1,7 @@
+-- Ajustes de seguridad compartidos por todos los nodos.
+-- bcrypt_cost lo calibra el primer nodo que arranca sin security.password.cost; el resto lo lee de aquí
+-- para que los hashes no cambien de coste según el nodo que atienda el login.
+create table if not exists security_settings (
+    name  varchar(64)  primary key,
+    value varchar(255) not null
+);
@@ -0,0 +1,117 @@
+package com.example.arkauser.infraestructure.adapter;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserJdbcAdapterTest {
+
+    private static final int ROWS = 20_000;
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void createLargeDataset() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure()
+                .dataSource(dataSource)
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("""
+                insert into users (username, email, password, first_name, last_name, phone_number, address,
+                                   active, country, city, role)
+                select 'user' || x, 'user' || x || '@arka.com', '$2a$10$abcdefghijklmnopqrstuv',
+                       'Nombre' || x, 'Apellido' || x, '300' || x, 'Calle ' || x, true,
+                       'Colombia', 'Medellin', 'USER'
+                from generate_series(1, ?) x""", ROWS);
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void streamsEveryUserThroughACursor() {
+        var recording = new RecordingDataSource(dataSource);
+        var adapter = new UserJdbcAdapter(recording, new DataSourceTransactionManager(recording));
+        var count = new AtomicLong();
+        var lastId = new AtomicLong();
+
+        adapter.streamAllUsers(user -> {
+            assertTrue(user.getId() > lastId.getAndSet(user.getId()));
+            count.incrementAndGet();
+        });
+
+        assertEquals(ROWS, count.get());
+        // El driver de PostgreSQL solo abre un cursor (y no carga las 20 000 filas de golpe) si la consulta
+        // corre con autocommit desactivado y un fetch size positivo.
+        assertEquals(Boolean.FALSE, recording.autoCommitAtQuery.get());
+        assertEquals(UserJdbcAdapter.EXPORT_FETCH_SIZE, recording.fetchSizeAtQuery.get());
+    }
+
+    // Anota autocommit y fetch size en el momento de ejecutar la consulta.
+    private static final class RecordingDataSource extends DelegatingDataSource {
+        private final AtomicReference<Boolean> autoCommitAtQuery = new AtomicReference<>();
+        private final AtomicInteger fetchSizeAtQuery = new AtomicInteger();
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        return result instanceof Statement statement ? recording(connection, statement) : result;
+                    });
+        }
+
+        private Statement recording(Connection connection, Statement statement) {
+            Class<?> type = statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("executeQuery")) {
+                            autoCommitAtQuery.set(connection.getAutoCommit());
+                            fetchSizeAtQuery.set(statement.getFetchSize());
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.arkauser.infraestructure.adapter;
+
+import com.example.arkauser.domain.exception.ChangeFeedGapException;
+import com.example.arkauser.domain.model.User;
+import com.example.arkauser.domain.model.UserChange;
+import com.example.arkauser.domain.model.UserPatch;
+import com.example.arkauser.domain.model.enums.ChangeType;
+import com.example.arkauser.infraestructure.mapper.UserMapper;
+import com.example.arkauser.infraestructure.messaging.UserOutboxRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserOutboxTest {
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbc;
+
+    private UserPersistenceAdapter persistenceAdapter;
+    private UserJdbcAdapter jdbcAdapter;
+    private UserOutboxRelay relay;
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure()
+                .dataSource(dataSource)
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc.execute("truncate users, user_outbox");
+        jdbc.execute("update user_outbox_watermark set purged_seq = 0");
+
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        // El repositorio JPA solo se usa en lecturas y en el camino de "no encontrado", que aquí no se prueban.
+        persistenceAdapter = new UserPersistenceAdapter(null, new UserMapper(), new NamedParameterJdbcTemplate(dataSource));
+        jdbcAdapter = new UserJdbcAdapter(dataSource, transactionManager);
+        relay = new UserOutboxRelay(jdbc, transactionManager, new SimpleMeterRegistry(),
+                true, 2, "user_changes", Duration.ofDays(7));
+    }
+
+    @Test
+    void everyMutationWritesItsEventInTheSameStatement() {
+        User created = persistenceAdapter.createUser(user("ana"));
+        Long id = created.getId();
+        assertNull(persistenceAdapter.patchUser(id, UserPatch.builder().city("Medellín").build()).getTokensValidAfter());
+        // El corte que se publica es el que quedó guardado, con el reloj de la base de datos.
+        var roleChange = persistenceAdapter.patchUser(id, UserPatch.builder().role("ADMIN").build());
+        assertEquals(jdbc.queryForObject("select tokens_valid_after from users where id = ?", Timestamp.class, id).toInstant(),
+                roleChange.getTokensValidAfter());
+
+        jdbc.update("update users set updated_at = now() - interval '1 day' where id = ?", id);
+        Long versionBefore = jdbc.queryForObject("select version from users where id = ?", Long.class, id);
+
+        // Compare-and-set fallido: ni cambio ni evento.
+        assertFalse(persistenceAdapter.updatePassword(id, "otro-hash", "hash-nuevo"));
+        assertEquals(List.of("CREATED", "UPDATED", "UPDATED"), eventTypes());
+
+        assertTrue(persistenceAdapter.updatePassword(id, "hash", "hash-nuevo"));
+        assertEquals("hash-nuevo", jdbc.queryForObject("select password from users where id = ?", String.class, id));
+        assertEquals(versionBefore + 1, jdbc.queryForObject("select version from users where id = ?", Long.class, id));
+        assertTrue(jdbc.queryForObject("select updated_at > now() - interval '1 minute' from users where id = ?", Boolean.class, id));
+
+        Instant deletedAt = persistenceAdapter.deleteUser(id);
+        assertEquals(List.of("CREATED", "UPDATED", "UPDATED", "UPDATED", "DELETED"), eventTypes());
+        assertEquals(5, jdbc.queryForObject("select count(*) from user_outbox where user_id = ?", Integer.class, id));
+        assertEquals(jdbc.queryForObject("select created_at from user_outbox where event_type = 'DELETED'", Timestamp.class).toInstant(),
+                deletedAt);
+    }
+
+    @Test
+    void bulkInsertWritesEventsOnlyForInsertedRows() {
+        persistenceAdapter.createUser(user("repetido"));
+
+        var inserted = jdbcAdapter.insertUsers(List.of(user("nuevo1"), user("repetido"), user("nuevo2")));
+
+        assertEquals(2, inserted.size());
+        assertEquals(3, jdbc.queryForObject("select count(*) from user_outbox where event_type = 'CREATED'", Integer.class));
+        for (User u : inserted) {
+            assertEquals(1, jdbc.queryForObject("select count(*) from user_outbox where user_id = ?", Integer.class, u.getId()));
+        }
+    }
+
+    @Test
+    void relayPublishesEverythingInOrderAndTheFeedPagesThroughIt() {
+        User kept = persistenceAdapter.createUser(user("conservado"));
+        User removed = persistenceAdapter.createUser(user("borrado"));
+        persistenceAdapter.deleteUser(removed.getId());
+
+        // Sin publicar, el feed no devuelve nada.
+        assertTrue(jdbcAdapter.getChangesSince(0, 100).isEmpty());
+
+        // Lotes de 2: el relay sigue mientras salgan llenos.
+        relay.relay();
+        assertEquals(0, jdbc.queryForObject("select count(*) from user_outbox where published_seq is null", Integer.class));
+
+        List<UserChange> first = jdbcAdapter.getChangesSince(0, 2);
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).getSeq() < first.get(1).getSeq());
+        assertEquals(kept.getId(), first.get(0).getUserId());
+        assertEquals("conservado", first.get(0).getUser().getUsername());
+        // Estado actual, no histórico: el alta del usuario borrado ya no trae datos.
+        assertEquals(ChangeType.CREATED, first.get(1).getType());
+        assertNull(first.get(1).getUser());
+
+        List<UserChange> rest = jdbcAdapter.getChangesSince(first.get(1).getSeq(), 2);
+        assertEquals(1, rest.size());
+        assertEquals(ChangeType.DELETED, rest.get(0).getType());
+        assertEquals(removed.getId(), rest.get(0).getUserId());
+        assertNull(rest.get(0).getUser());
+
+        assertTrue(jdbcAdapter.getChangesSince(rest.get(0).getSeq(), 2).isEmpty());
+    }
+
+    @Test
+    void publishedSeqFollowsOutboxOrderWithinABatch() {
+        // Varios eventos del mismo usuario en un mismo lote, como un alta seguida de cambios y un borrado.
+        jdbc.update("""
+                insert into user_outbox (user_id, event_type)
+                select 7, case when x = 1 then 'CREATED' when x = 200 then 'DELETED' else 'UPDATED' end
+                from generate_series(1, 200) x""");
+        var bigBatches = new UserOutboxRelay(jdbc, new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(),
+                true, 500, "user_changes", Duration.ofDays(7));
+
+        bigBatches.relay();
+
+        List<Long> seqs = jdbc.queryForList("select published_seq from user_outbox order by id", Long.class);
+        assertEquals(200, seqs.size());
+        for (int i = 1; i < seqs.size(); i++) {
+            assertEquals(seqs.get(i - 1) + 1, seqs.get(i));
+        }
+        List<UserChange> feed = jdbcAdapter.getChangesSince(0, 500);
+        assertEquals(ChangeType.CREATED, feed.get(0).getType());
+        assertEquals(ChangeType.DELETED, feed.get(199).getType());
+
+        // El siguiente lote continúa la secuencia sin huecos ni solapes.
+        persistenceAdapter.createUser(user("siguiente"));
+        bigBatches.relay();
+        assertEquals(seqs.get(199) + 1, jdbc.queryForObject("select max(published_seq) from user_outbox", Long.class));
+    }
+
+    @Test
+    void cursorBelowThePurgedEventsIsAGap() {
+        persistenceAdapter.createUser(user("antiguo"));
+        persistenceAdapter.createUser(user("reciente"));
+        relay.relay();
+        List<UserChange> all = jdbcAdapter.getChangesSince(0, 100);
+        long purgedSeq = all.get(0).getSeq();
+        jdbc.update("update user_outbox set published_at = now() - interval '30 days' where published_seq = ?", purgedSeq);
+
+        relay.purge();
+
+        var gap = assertThrows(ChangeFeedGapException.class, () -> jdbcAdapter.getChangesSince(0, 100));
+        assertEquals(purgedSeq, gap.getResetCursor());
+
+        // Desde reset_cursor el feed sigue con lo conservado.
+        List<UserChange> resumed = jdbcAdapter.getChangesSince(gap.getResetCursor(), 100);
+        assertEquals(1, resumed.size());
+        assertEquals(all.get(1).getSeq(), resumed.get(0).getSeq());
+        assertNotNull(resumed.get(0).getUser());
+
+        // Una purga sin nada que borrar no mueve la marca.
+        relay.purge();
+        assertEquals(purgedSeq, jdbc.queryForObject("select purged_seq from user_outbox_watermark", Long.class));
+    }
+
+    private static List<String> eventTypes() {
+        return jdbc.queryForList("select event_type from user_outbox order by id", String.class);
+    }
+
+    private static User user(String username) {
+        return User.builder()
+                .username(username)
+                .email(username + "@arka.com")
+                .password("hash")
+                .firstName("Nombre")
+                .isActive(true)
+                .role("USER")
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.arkauser.infraestructure.adapter;
+
+import com.example.arkauser.domain.model.User;
+import com.example.arkauser.infraestructure.mapper.UserMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserPersistenceAdapterTest {
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbc;
+    private static UserPersistenceAdapter adapter;
+    private static List<Long> ids;
+
+    @BeforeAll
+    static void migrateAndSeed() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        var dataSource = postgres.getPostgresDatabase();
+        Flyway.configure()
+                .dataSource(dataSource)
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        ids = jdbc.queryForList("""
+                insert into users (username, email, password, first_name, active, role)
+                select 'user' || x, 'user' || x || '@arka.com', 'hash', 'Nombre' || x, true, 'USER'
+                from generate_series(1, 1000) x
+                returning id""", Long.class);
+        // El repositorio JPA no interviene en la consulta por lotes.
+        adapter = new UserPersistenceAdapter(null, new UserMapper(), new NamedParameterJdbcTemplate(dataSource));
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void lookupReturnsOnlyExistingUsers() {
+        long missing = ids.get(ids.size() - 1) + 1000;
+
+        var users = adapter.getUsersByIds(List.of(ids.get(0), missing, ids.get(5)));
+
+        assertEquals(Set.of(ids.get(0), ids.get(5)), users.stream().map(User::getId).collect(Collectors.toSet()));
+        User first = users.stream().filter(u -> u.getId().equals(ids.get(0))).findFirst().orElseThrow();
+        assertEquals(jdbc.queryForObject("select username from users where id = ?", String.class, ids.get(0)),
+                first.getUsername());
+        // La proyección del lote no incluye el hash de la contraseña.
+        assertNull(first.getPassword());
+    }
+
+    @Test
+    void lookupOfTheMaximumBatchReturnsEveryUser() {
+        // Los 1000 ids viajan como un único parámetro array, sin expandir placeholders.
+        var users = adapter.getUsersByIds(new ArrayList<>(ids));
+
+        assertEquals(Set.copyOf(ids), users.stream().map(User::getId).collect(Collectors.toSet()));
+    }
+}
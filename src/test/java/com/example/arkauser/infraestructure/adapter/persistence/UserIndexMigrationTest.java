@@ -0,0 +1,94 @@
+package com.example.arkauser.infraestructure.adapter.persistence;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserIndexMigrationTest {
+
+    private static final int ROWS = 50_000;
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void migrateAndSeed() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .load()
+                .migrate();
+
+        jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        // Distribución parecida a producción: casi todos USER y activos.
+        jdbc.update("""
+                insert into users (username, email, password, first_name, last_name, active, role)
+                select 'user' || x, 'User' || x || '@Arka.com', '$2a$10$abcdefghijklmnopqrstuv',
+                       'Nombre' || x, 'Apellido' || x,
+                       x % 500 <> 0,
+                       case when x % 1000 = 0 then 'ADMIN' else 'USER' end
+                from generate_series(1, ?) x""", ROWS);
+        jdbc.execute("analyze users");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void roleLookupUsesCompositeIndex() {
+        assertUsesIndex("select id, username from users where role = 'ADMIN'", "idx_users_role_active");
+        assertUsesIndex("select id, username from users where role = 'ADMIN' and active", "idx_users_role_active");
+    }
+
+    @Test
+    void inactiveLookupUsesPartialIndex() {
+        assertUsesIndex("select id, username from users where active = false", "idx_users_inactive");
+    }
+
+    @Test
+    void emailLookupIsCaseInsensitiveAndIndexed() {
+        String sql = "select id from users where lower(email) = lower(?)";
+        assertUsesIndex(sql.replace("?", "'USER42@arka.COM'"), "idx_users_email_lower");
+        assertTrue(jdbc.queryForList(sql, Long.class, "USER42@arka.COM").contains(42L));
+    }
+
+    @Test
+    void emailIsUniqueRegardlessOfCase() {
+        assertThrows(DuplicateKeyException.class, () -> jdbc.update("""
+                insert into users (username, email, password, active, role)
+                values ('otro42', 'USER42@ARKA.COM', 'x', true, 'USER')"""));
+    }
+
+    @Test
+    void migrationNormalizesExistingEmails() {
+        // Esquema aparte migrado hasta V4, con datos anteriores a la normalización.
+        var flyway = Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .schemas("email_normalization");
+        flyway.target("4").load().migrate();
+        jdbc.update("insert into email_normalization.users (username, email, password, active, role) "
+                + "values ('mixto', ' Mixto@Arka.COM ', 'x', true, 'USER')");
+
+        flyway.target("latest").load().migrate();
+
+        assertEquals("mixto@arka.com",
+                jdbc.queryForObject("select email from email_normalization.users where username = 'mixto'", String.class));
+    }
+
+    private static void assertUsesIndex(String sql, String index) {
+        String plan = String.join("\n", jdbc.queryForList("explain " + sql, String.class));
+        assertTrue(plan.contains(index), "Plan sin " + index + ":\n" + plan);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.arkauser.infraestructure.client;
+
+import com.example.arkauser.config.ProductClientResilienceConfig;
+import com.example.arkauser.infraestructure.dto.ProductDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.Request;
+import feign.Retryer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingProductClientTest {
+
+    private static final String PRODUCTS_PATH = "/api/product-service/products/";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private volatile int injectedStatus = 200;
+    private volatile long injectedLatencyMillis = 100;
+
+    private HttpServer productService;
+    private ProductClient feignClient;
+    private CircuitBreaker circuitBreaker;
+    private CachingProductClient client;
+
+    @BeforeEach
+    void startProductServiceStub() throws Exception {
+        productService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        productService.setExecutor(Executors.newCachedThreadPool());
+        productService.createContext(PRODUCTS_PATH, exchange -> {
+            remoteCalls.incrementAndGet();
+            String id = exchange.getRequestURI().getPath().substring(PRODUCTS_PATH.length());
+            try {
+                Thread.sleep(injectedLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (injectedStatus != 200 || "99".equals(id)) {
+                exchange.sendResponseHeaders(injectedStatus != 200 ? injectedStatus : 500, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = ("{\"id\":" + id + ",\"name\":\"Teclado\",\"price\":120.5,\"stock\":7}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        productService.start();
+
+        feignClient = Feign.builder()
+                .contract(new SpringMvcContract())
+                .options(new Request.Options(200, TimeUnit.MILLISECONDS, 300, TimeUnit.MILLISECONDS, true))
+                .retryer(Retryer.NEVER_RETRY)
+                .decoder((response, type) -> objectMapper.readValue(
+                        response.body().asInputStream(), objectMapper.constructType(type)))
+                .target(ProductClient.class,
+                        "http://localhost:" + productService.getAddress().getPort() + "/api/product-service/products");
+
+        circuitBreaker = ProductClientResilienceConfig.circuitBreaker(
+                CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                        .slidingWindowSize(4)
+                        .minimumNumberOfCalls(4)
+                        .failureRateThreshold(50)
+                        .waitDurationInOpenState(Duration.ofMillis(300))
+                        .permittedNumberOfCallsInHalfOpenState(1)
+                        .build()),
+                meterRegistry);
+        client = newClient(Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void stop() {
+        client.shutdown();
+        productService.stop(0);
+    }
+
+    @Test
+    void concurrentLookupsForTheSameProductMakeOneRemoteCall() throws Exception {
+        int callers = 20;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ProductDto>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return client.getProductById(1L);
+            }));
+        }
+        start.countDown();
+
+        for (Future<ProductDto> result : results) {
+            assertEquals("Teclado", result.get().getName());
+        }
+        pool.shutdown();
+
+        assertEquals(1, remoteCalls.get());
+        assertEquals(1L, client.getProductById(1L).getId());
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void differentProductsAreFetchedSeparately() {
+        client.getProductById(1L);
+        client.getProductById(2L);
+        client.getProductById(1L);
+
+        assertEquals(2, remoteCalls.get());
+    }
+
+    @Test
+    void batchLookupReturnsPartialResultsWhenSomeIdsFail() {
+        var result = client.getProductsByIds(List.of(1L, 99L, 2L, 1L));
+
+        assertEquals(List.of(1L, 2L), List.copyOf(result.found().keySet()));
+        assertEquals(List.of(99L), result.failed());
+        assertEquals(3, remoteCalls.get());
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingProductService() {
+        injectedStatus = 503;
+        for (long id = 10; id < 14; id++) {
+            long productId = id;
+            assertThrows(RuntimeException.class, () -> client.getProductById(productId));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        int callsWhenOpened = remoteCalls.get();
+        assertThrows(CallNotPermittedException.class, () -> client.getProductById(20L));
+        assertEquals(callsWhenOpened, remoteCalls.get());
+        assertEquals(1.0, meterRegistry.counter("product.client.circuit.transitions",
+                "from", "CLOSED", "to", "OPEN").count());
+    }
+
+    @Test
+    void halfOpenProbeClosesTheCircuitOnceProductServiceRecovers() throws Exception {
+        injectedLatencyMillis = 1000;
+        for (long id = 10; id < 14; id++) {
+            long productId = id;
+            assertThrows(RuntimeException.class, () -> client.getProductById(productId));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        injectedLatencyMillis = 0;
+        Thread.sleep(400);
+
+        assertEquals("Teclado", client.getProductById(30L).getName());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void servesLastKnownValueWhenProductServiceFails() throws Exception {
+        client.shutdown();
+        client = newClient(Duration.ofMillis(50));
+
+        assertEquals(7, client.getProductById(1L).getStock());
+        Thread.sleep(100);
+        injectedStatus = 500;
+
+        assertEquals(7, client.getProductById(1L).getStock());
+        assertTrue(meterRegistry.counter("product.client.stale.served").count() >= 1);
+    }
+
+    @Test
+    void virtualThreadBatchLargerThanTheBulkheadWaitsInsteadOfFailing() {
+        client.shutdown();
+        client = newClient(Duration.ofMinutes(1), true);
+        injectedLatencyMillis = 50;
+
+        var ids = new ArrayList<Long>();
+        for (long id = 100; id < 130; id++) ids.add(id);
+        var result = client.getProductsByIds(ids);
+
+        assertEquals(30, result.found().size());
+        assertTrue(result.failed().isEmpty());
+        assertEquals(30, remoteCalls.get());
+    }
+
+    private CachingProductClient newClient(Duration ttl) {
+        return newClient(ttl, false);
+    }
+
+    private CachingProductClient newClient(Duration ttl, boolean virtualThreads) {
+        var bulkhead = Bulkhead.of("product-service", BulkheadConfig.custom()
+                .maxConcurrentCalls(8)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        return new CachingProductClient(feignClient, circuitBreaker, bulkhead, meterRegistry,
+                100, ttl, 4, Duration.ofSeconds(2), 50, true, Duration.ofMinutes(10), virtualThreads);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.arkauser.infraestructure.messaging;
+
+import com.example.arkauser.application.service.TokenRevocationService;
+import com.example.arkauser.application.service.VerifiedToken;
+import com.example.arkauser.domain.ports.out.UserCachePort;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostgresUserInvalidationBusTest {
+
+    // Mayúsculas y comillas: LISTEN y pg_notify tienen que coincidir con el nombre exacto.
+    private static final String CHANNEL = "User\"Invalidation";
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbc;
+
+    private final List<PostgresUserInvalidationBus> buses = new ArrayList<>();
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @AfterEach
+    void stopBuses() {
+        buses.forEach(PostgresUserInvalidationBus::stop);
+    }
+
+    @Test
+    void notificationReachesTheOtherNode() throws Exception {
+        var senderCache = new RecordingCache();
+        var receiverCache = new RecordingCache();
+        var receiverRevocations = new TokenRevocationService(1000);
+        var sender = bus(senderCache, new TokenRevocationService(1000));
+        var receiver = bus(receiverCache, receiverRevocations);
+        receiver.start();
+
+        // El LISTEN se hace en otro hilo: se republica hasta que llega o vence el plazo.
+        Instant at = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Long received = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received == null && System.nanoTime() < deadline) {
+            sender.publish(42L, true, at);
+            received = receiverCache.evicted.poll(100, TimeUnit.MILLISECONDS);
+        }
+
+        assertEquals(42L, received);
+        assertTrue(receiverRevocations.isRevoked(token(42L, at.minusMillis(1))));
+        assertFalse(receiverRevocations.isRevoked(token(42L, at.plusMillis(1))));
+        // El emisor ignora sus propios mensajes.
+        assertTrue(senderCache.evicted.isEmpty());
+    }
+
+    @Test
+    void storedRevocationsAreLoadedBeforeServingTraffic() {
+        Instant revokedAt = Instant.now().minusSeconds(30).truncatedTo(ChronoUnit.MILLIS);
+        Long userId = jdbc.queryForObject("""
+                insert into users (username, email, password, active, role, tokens_valid_after)
+                values ('arranque', 'arranque@arka.com', 'x', true, 'USER', ?) returning id""",
+                Long.class, Timestamp.from(revokedAt));
+
+        var revocations = new TokenRevocationService(1000);
+        // Sin start(): la carga ocurre al terminar de crear los beans, antes de ApplicationReadyEvent.
+        bus(new RecordingCache(), revocations).afterSingletonsInstantiated();
+
+        assertTrue(revocations.isRevoked(token(userId, revokedAt.minusMillis(1))));
+        assertFalse(revocations.isRevoked(token(userId, revokedAt.plusMillis(1))));
+    }
+
+    @Test
+    void revocationsMissedWhileDisconnectedAreRebuiltOnConnect() throws Exception {
+        Instant revokedAt = Instant.now().minusSeconds(60).truncatedTo(ChronoUnit.MILLIS);
+        Long activeId = jdbc.queryForObject("""
+                insert into users (username, email, password, active, role, tokens_valid_after)
+                values ('revocado', 'revocado@arka.com', 'x', true, 'USER', ?) returning id""",
+                Long.class, Timestamp.from(revokedAt));
+        jdbc.update("insert into user_outbox (user_id, event_type, created_at) values (999, 'DELETED', ?)",
+                Timestamp.from(revokedAt));
+
+        var revocations = new TokenRevocationService(1000);
+        var receiver = bus(new RecordingCache(), revocations);
+        receiver.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!revocations.isRevoked(token(activeId, revokedAt.minusMillis(1))) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(revocations.isRevoked(token(activeId, revokedAt.minusMillis(1))));
+        assertFalse(revocations.isRevoked(token(activeId, revokedAt.plusMillis(1))));
+        assertTrue(revocations.isRevoked(token(999L, revokedAt.minusMillis(1))));
+    }
+
+    @Test
+    void channelIsQuotedAsAnIdentifier() {
+        assertEquals("\"user_invalidation\"", PostgresUserInvalidationBus.quoteIdentifier("user_invalidation"));
+        assertEquals("\"a\"\";drop table users;--\"", PostgresUserInvalidationBus.quoteIdentifier("a\";drop table users;--"));
+    }
+
+    private PostgresUserInvalidationBus bus(UserCachePort cache, TokenRevocationService revocations) {
+        var bus = new PostgresUserInvalidationBus(jdbc, postgres.getPostgresDatabase(), cache, revocations,
+                true, CHANNEL, Duration.ofMillis(200), Duration.ofSeconds(1), Duration.ofSeconds(2));
+        buses.add(bus);
+        return bus;
+    }
+
+    private static VerifiedToken token(Long userId, Instant issuedAt) {
+        return new VerifiedToken("user", userId, List.of("USER"), issuedAt, issuedAt.plusSeconds(3600));
+    }
+
+    private static final class RecordingCache implements UserCachePort {
+        private final BlockingQueue<Long> evicted = new LinkedBlockingQueue<>();
+
+        @Override
+        public void evictUser(Long id) {
+            evicted.add(id);
+        }
+
+        @Override
+        public void evictAll() {
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.arkauser.infraestructure.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveBCryptPasswordEncoderTest {
+
+    private final AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+    @Test
+    void rehashesOnlyBelowTargetOrTwoPointsAbove() {
+        assertTrue(encoder.upgradeEncoding(hash(4)));
+        assertFalse(encoder.upgradeEncoding(hash(5)));
+        // Un nodo con un punto más no provoca un rehash de ida y vuelta en cada login.
+        assertFalse(encoder.upgradeEncoding(hash(6)));
+        assertTrue(encoder.upgradeEncoding(hash(7)));
+    }
+
+    private static String hash(int cost) {
+        return new BCryptPasswordEncoder(cost).encode("secreto");
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.arkauser.infraestructure.security;
+
+import com.example.arkauser.application.service.JwtService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtKeyRingTest {
+
+    private static final String HMAC_SECRET = "legacy_secret_key_32_chars_len!!!";
+
+    @Test
+    void signsWithEs256AndVerifiesTheRoundTrip() throws Exception {
+        KeyPair pair = generateP256();
+        var keyRing = new JwtKeyRing(withSigningKey("es256-test", pair));
+        var jwtService = new JwtService(100, keyRing, new SimpleMeterRegistry());
+
+        String token = jwtService.generateToken("admin@arka.com", 7L, List.of("ADMIN"));
+
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+        assertTrue(header.contains("\"alg\":\"ES256\""), header);
+        assertTrue(header.contains("\"kid\":\"es256-test\""), header);
+
+        var verified = jwtService.verify(token).orElseThrow();
+        assertEquals("admin@arka.com", verified.subject());
+        assertEquals(7L, verified.userId());
+        assertEquals(List.of("ADMIN"), verified.roles());
+
+        // Otro nodo con la misma clave pública verifica el token.
+        var otherNode = new JwtService(100, new JwtKeyRing(withSigningKey("es256-test", pair)), new SimpleMeterRegistry());
+        assertTrue(otherNode.isValidToken(token));
+        String[] parts = token.split("\\.");
+        String forgedClaims = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"otro@arka.com\",\"uid\":8}".getBytes(StandardCharsets.UTF_8));
+        assertFalse(otherNode.isValidToken(parts[0] + "." + forgedClaims + "." + parts[2]));
+    }
+
+    @Test
+    void jwkCoordinatesAreUnsignedFixedLengthBase64Url() throws Exception {
+        // Se buscan claves cuyas coordenadas ocupan 33 bytes con signo y menos de 32: los dos bordes.
+        boolean sawShort = false;
+        boolean sawSigned = false;
+        for (int i = 0; i < 10_000 && !(sawShort && sawSigned); i++) {
+            KeyPair pair = generateP256();
+            var w = ((ECPublicKey) pair.getPublic()).getW();
+            boolean isShort = w.getAffineX().bitLength() <= 248 || w.getAffineY().bitLength() <= 248;
+            boolean isSigned = w.getAffineX().bitLength() == 256 || w.getAffineY().bitLength() == 256;
+            if (!(isShort && !sawShort) && !(isSigned && !sawSigned)) continue;
+            sawShort |= isShort;
+            sawSigned |= isSigned;
+
+            Map<String, Object> jwk = onlyJwk(new JwtKeyRing(withSigningKey("k" + i, pair)));
+            assertEquals("EC", jwk.get("kty"));
+            assertEquals("P-256", jwk.get("crv"));
+            assertEquals("ES256", jwk.get("alg"));
+            assertCoordinate(w.getAffineX(), (String) jwk.get("x"));
+            assertCoordinate(w.getAffineY(), (String) jwk.get("y"));
+        }
+        assertTrue(sawShort && sawSigned);
+    }
+
+    @Test
+    void hmacTokensAreRejectedUnlessLegacyHmacIsEnabled() throws Exception {
+        String legacyToken = hmacToken();
+
+        var environment = withSigningKey("es256-test", generateP256())
+                .withProperty("security.jwt.secret", HMAC_SECRET);
+        var jwtService = new JwtService(100, new JwtKeyRing(environment), new SimpleMeterRegistry());
+
+        assertFalse(jwtService.isValidToken(legacyToken));
+    }
+
+    @Test
+    void hmacTokensAreAcceptedOnlyUntilTheCutOff() throws Exception {
+        String legacyToken = hmacToken();
+
+        var beforeCutOff = withSigningKey("es256-test", generateP256())
+                .withProperty("security.jwt.secret", HMAC_SECRET)
+                .withProperty("security.jwt.legacy-hmac.enabled", "true")
+                .withProperty("security.jwt.legacy-hmac.accept-until", Instant.now().plusSeconds(3600).toString());
+        assertTrue(new JwtService(100, new JwtKeyRing(beforeCutOff), new SimpleMeterRegistry()).isValidToken(legacyToken));
+
+        var afterCutOff = withSigningKey("es256-test", generateP256())
+                .withProperty("security.jwt.secret", HMAC_SECRET)
+                .withProperty("security.jwt.legacy-hmac.enabled", "true")
+                .withProperty("security.jwt.legacy-hmac.accept-until", Instant.now().minusSeconds(1).toString());
+        assertFalse(new JwtService(100, new JwtKeyRing(afterCutOff), new SimpleMeterRegistry()).isValidToken(legacyToken));
+    }
+
+    @Test
+    void legacyHmacRequiresACutOff() throws Exception {
+        var environment = withSigningKey("es256-test", generateP256())
+                .withProperty("security.jwt.secret", HMAC_SECRET)
+                .withProperty("security.jwt.legacy-hmac.enabled", "true");
+
+        assertThrows(IllegalStateException.class, () -> new JwtKeyRing(environment));
+    }
+
+    @Test
+    void ephemeralKeyIsOnlyAllowedWithTheDevProfile() {
+        assertThrows(IllegalStateException.class, () -> new JwtKeyRing(new MockEnvironment()));
+
+        var dev = new MockEnvironment();
+        dev.setActiveProfiles("dev");
+        assertTrue(new JwtKeyRing(dev).activeKid().startsWith("ephemeral-"));
+    }
+
+    private static void assertCoordinate(BigInteger expected, String encoded) {
+        assertFalse(encoded.contains("="), encoded);
+        byte[] raw = Base64.getUrlDecoder().decode(encoded);
+        assertEquals(32, raw.length);
+        assertEquals(expected, new BigInteger(1, raw));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> onlyJwk(JwtKeyRing keyRing) {
+        var keys = (List<Map<String, Object>>) keyRing.jwks().get("keys");
+        assertEquals(1, keys.size());
+        return keys.get(0);
+    }
+
+    private static String hmacToken() {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject("admin@arka.com")
+                .claim("uid", 1L)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(HMAC_SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static MockEnvironment withSigningKey(String kid, KeyPair pair) {
+        return new MockEnvironment()
+                .withProperty("security.jwt.signing-keys[0].kid", kid)
+                .withProperty("security.jwt.signing-keys[0].private-key", pem("PRIVATE KEY", pair.getPrivate().getEncoded()))
+                .withProperty("security.jwt.signing-keys[0].public-key", pem("PUBLIC KEY", pair.getPublic().getEncoded()));
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der)
+                + "\n-----END " + type + "-----";
+    }
+
+    private static KeyPair generateP256() throws Exception {
+        var generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+}
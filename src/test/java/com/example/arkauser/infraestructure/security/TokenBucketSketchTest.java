@@ -0,0 +1,91 @@
+package com.example.arkauser.infraestructure.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketSketchTest {
+
+    private static final int WIDTH = 65536;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    void startsFullAndRejectsOnceCapacityIsSpent() {
+        var sketch = new TokenBucketSketch(WIDTH, 3, 60, clock::get);
+
+        assertEquals(3, acquireAll(sketch, "user@arka.com", 10));
+    }
+
+    @Test
+    void drainedCellIsNotMistakenForAnUnusedOne() {
+        // Vaciar el cubo en el primer milisegundo dejaría la celda con instante y saldo a cero.
+        var sketch = new TokenBucketSketch(WIDTH, 1, 1, clock::get);
+
+        assertTrue(sketch.tryAcquire("user@arka.com"));
+        assertFalse(sketch.tryAcquire("user@arka.com"));
+        assertFalse(sketch.tryAcquire("user@arka.com"));
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        // 60 por minuto: un token por segundo.
+        var sketch = new TokenBucketSketch(WIDTH, 1, 60, clock::get);
+        assertTrue(sketch.tryAcquire("user@arka.com"));
+
+        clock.addAndGet(999);
+        assertFalse(sketch.tryAcquire("user@arka.com"));
+
+        // Los 999 ms del intento rechazado no se pierden.
+        clock.addAndGet(1);
+        assertTrue(sketch.tryAcquire("user@arka.com"));
+        assertFalse(sketch.tryAcquire("user@arka.com"));
+    }
+
+    @Test
+    void idleBucketNeverExceedsCapacity() {
+        var sketch = new TokenBucketSketch(WIDTH, 2, 60, clock::get);
+        assertEquals(2, acquireAll(sketch, "user@arka.com", 10));
+
+        clock.addAndGet(3_600_000);
+        assertEquals(2, acquireAll(sketch, "user@arka.com", 10));
+    }
+
+    @Test
+    void capacityIsClampedToWhatACellCanHold() {
+        // 24 bits de milli-tokens: como mucho 16777 tokens por celda.
+        var sketch = new TokenBucketSketch(WIDTH, 100_000, 60, clock::get);
+
+        assertEquals(16_777, acquireAll(sketch, "user@arka.com", 20_000));
+    }
+
+    @Test
+    void clockGoingBackwardsDoesNotCorruptTheCell() {
+        var sketch = new TokenBucketSketch(WIDTH, 2, 60_000, clock::get);
+        assertTrue(sketch.tryAcquire("user@arka.com"));
+
+        clock.addAndGet(-10_000);
+        assertEquals(1, acquireAll(sketch, "user@arka.com", 10));
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        var sketch = new TokenBucketSketch(WIDTH, 1, 1, clock::get);
+
+        assertTrue(sketch.tryAcquire("a@arka.com"));
+        assertFalse(sketch.tryAcquire("a@arka.com"));
+        assertTrue(sketch.tryAcquire("b@arka.com"));
+    }
+
+    private static int acquireAll(TokenBucketSketch sketch, String key, int attempts) {
+        int allowed = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (sketch.tryAcquire(key)) allowed++;
+        }
+        return allowed;
+    }
+}